@@ -0,0 +1,44 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of filling a four-player game, which is where questions are assigned,
+ * as the bank grows. The bank repeats a single Question so that millions of
+ * entries fit in memory; sampling only looks at indices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssignQuestionsBenchmark {
+    private static final String[] NAMES = {"Joueur 1", "Joueur 2", "Joueur 3", "Joueur 4"};
+
+    @Param({"1000", "1000000", "50000000"})
+    int bankSize;
+
+    private QuizEngine engine;
+
+    @Setup
+    public void setUp() {
+        Question question = new Question("Question", Arrays.asList("A", "B", "C", "D"), 0);
+        engine = new QuizEngine(Collections.nCopies(bankSize, question), new Random(42));
+    }
+
+    @Benchmark
+    public List<Player> assignQuestions() {
+        engine.start();
+        engine.selectPlayers(NAMES.length);
+        for (String name : NAMES) {
+            engine.addPlayer(name);
+        }
+        List<Player> players = engine.getPlayers();
+        engine.quit();
+        return players;
+    }
+}
@@ -0,0 +1,80 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Question bank loading at several sizes: streaming parse of questions.json,
+ * the first start that compiles questions.bin, and a start that only maps an
+ * up-to-date bank.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BankLoadingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"10000", "100000", "1000000"})
+        int size;
+
+        Path json;
+        Path bank;
+
+        @Setup(Level.Trial)
+        public void generate() throws IOException {
+            json = QuestionLoaderBenchmark.generate(size);
+            bank = json.resolveSibling(json.getFileName() + ".bin");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(json);
+            Files.deleteIfExists(bank);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ColdBank extends Bank {
+        @Setup(Level.Invocation)
+        public void removeCompiledBank() throws IOException {
+            Files.deleteIfExists(bank);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WarmBank extends Bank {
+        @Setup(Level.Trial)
+        public void compile() {
+            QuizGame.loadQuestions(json, bank);
+        }
+    }
+
+    @Benchmark
+    public int streamingParse(Bank state) throws IOException {
+        int count = 0;
+        try (Reader reader = Files.newBufferedReader(state.json, StandardCharsets.UTF_8)) {
+            QuestionLoader loader = new QuestionLoader(reader, (reason, record) -> { });
+            while (loader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<Question> loadQuestionsCold(ColdBank state) {
+        return QuizGame.loadQuestions(state.json, state.bank);
+    }
+
+    @Benchmark
+    public List<Question> loadQuestionsWarm(WarmBank state) {
+        return QuizGame.loadQuestions(state.json, state.bank);
+    }
+}
@@ -0,0 +1,170 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Plays simulated games with and without GameJournal to measure what
+ * journaling costs the game loop, scans the resulting journal, times
+ * reopening it from its checkpoint, then checks
+ * that finished games replay to the same scores and that an interrupted
+ * game resumes exactly. Events are produced far faster than in play, so on
+ * few cores some may be dropped; the count is printed. Usage: GameJournalBenchmark [games] (default 1000000).
+ */
+public class GameJournalBenchmark {
+    private static final String[] NAMES = {"Joueur 1", "Joueur 2", "Joueur 3", "Joueur 4"};
+
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        List<Question> bank = QuizSimulator.generateBank(10_000, 42);
+        Path dir = Files.createTempDirectory("journal-bench");
+        Path file = dir.resolve("games.journal");
+        try {
+            // Warm up both paths before timing either
+            play(bank, null, games / 10, 7);
+            try (GameJournal journal = open(dir.resolve("warmup.journal"))) {
+                play(bank, journal, games / 10, 7);
+            }
+
+            long start = System.nanoTime();
+            long plain = play(bank, null, games, 42);
+            double plainSeconds = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            long journaled;
+            long dropped;
+            try (GameJournal journal = open(file)) {
+                journaled = play(bank, journal, games, 42);
+                dropped = journal.getDropped();
+            }
+            double journalSeconds = (System.nanoTime() - start) / 1e9;
+            if (plain != journaled) {
+                throw new IllegalStateException("Le journal a changé le déroulement des parties");
+            }
+            System.out.printf("%d parties: %.2f s sans journal, %.2f s avec (%d événements perdus), %.1f Mo, %.0f o/partie%n",
+                games, plainSeconds, journalSeconds, dropped, Files.size(file) / 1e6, (double) Files.size(file) / games);
+
+            long[] events = new long[1];
+            start = System.nanoTime();
+            GameJournal.scan(file, new GameJournal.Visitor() {
+                @Override
+                public void answered(int game, int seat, int question, int selected, boolean correct, int latencyMicros) {
+                    events[0]++;
+                }
+            });
+            double scanSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("lecture: %.2f s, %.0f parties/s, %d réponses%n", scanSeconds, games / scanSeconds, events[0]);
+
+            start = System.nanoTime();
+            try (GameJournal journal = open(file)) {
+                if (!journal.getInterrupted().isEmpty()) {
+                    throw new IllegalStateException("Partie interrompue dans un journal complet");
+                }
+            }
+            System.out.printf("réouverture: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+            checkReplay(bank, dir.resolve("replay.journal"));
+            checkResume(bank, dir.resolve("resume.journal"));
+            System.out.println("reprise et rejeu identiques");
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path f : files) {
+                    Files.delete(f);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static GameJournal open(Path file) throws IOException {
+        return GameJournal.open(file, file.resolveSibling(file.getFileName() + ".idx"));
+    }
+
+    // Same answers as QuizSimulator; returns a hash of every game's scores
+    private static long play(List<Question> bank, GameJournal journal, long games, long seed) {
+        Random random = new Random(seed);
+        QuizEngine engine = new QuizEngine(bank, new Random(seed ^ 0x5DEECE66DL));
+        engine.setJournal(journal);
+        long hash = 17;
+        for (long g = 0; g < games; g++) {
+            start(engine, random);
+            while (engine.getState() == QuizEngine.State.GAME) {
+                engine.answer(random.nextInt(5) - 1, random.nextInt(30_000) * 1_000_000L);
+            }
+            for (Player player : engine.getPlayers()) {
+                hash = hash * 31 + player.getScore();
+            }
+            engine.newGame();
+        }
+        return hash;
+    }
+
+    private static void start(QuizEngine engine, Random random) {
+        engine.start();
+        int players = QuizEngine.MIN_PLAYERS + random.nextInt(QuizEngine.MAX_PLAYERS - QuizEngine.MIN_PLAYERS + 1);
+        engine.selectPlayers(players);
+        for (int p = 0; p < players; p++) {
+            engine.addPlayer(NAMES[p]);
+        }
+    }
+
+    // Replays every game of a short journaled run on an engine without journal
+    private static void checkReplay(List<Question> bank, Path file) throws IOException {
+        int games = 1_000;
+        long played;
+        try (GameJournal journal = open(file)) {
+            played = play(bank, journal, games, 99);
+            if (journal.getDropped() > 0) {
+                throw new IllegalStateException("Événements perdus sur une courte série");
+            }
+        }
+        long hash = 17;
+        for (int id = 0; id < games; id++) {
+            QuizEngine engine = new QuizEngine(bank, new Random());
+            if (!engine.resume(GameJournal.read(file, id)) || engine.getState() != QuizEngine.State.RESULTS) {
+                throw new IllegalStateException("Partie " + id + " impossible à rejouer");
+            }
+            for (Player player : engine.getPlayers()) {
+                hash = hash * 31 + player.getScore();
+            }
+        }
+        if (hash != played) {
+            throw new IllegalStateException("Parties rejouées avec d'autres scores");
+        }
+    }
+
+    // Stops a game halfway, after a few finished ones, reopens the journal and compares the resumed engine
+    // with the original
+    private static void checkResume(List<Question> bank, Path file) throws IOException {
+        Random random = new Random(1);
+        QuizEngine original = new QuizEngine(bank, new Random(2), new QuestionStats(bank.size()));
+        try (GameJournal journal = open(file)) {
+            play(bank, journal, 100, 5);
+            original.setJournal(journal);
+            start(original, random);
+            for (int a = 0; a < 7; a++) {
+                original.answer(random.nextInt(5) - 1, random.nextInt(30_000) * 1_000_000L);
+            }
+        }
+        try (GameJournal journal = open(file)) {
+            QuizEngine resumed = new QuizEngine(bank, new Random(3), new QuestionStats(bank.size()));
+            resumed.setJournal(journal);
+            if (journal.getInterrupted().size() != 1 || !resumed.resume(journal.getInterrupted().get(0))) {
+                throw new IllegalStateException("Partie interrompue introuvable");
+            }
+            if (resumed.getCurrentQuestion() != original.getCurrentQuestion()
+                    || !resumed.getCurrentPlayer().getName().equals(original.getCurrentPlayer().getName())) {
+                throw new IllegalStateException("Reprise sur une autre question");
+            }
+            for (int seat = 0; seat < original.getPlayers().size(); seat++) {
+                Player a = original.getPlayers().get(seat);
+                Player b = resumed.getPlayers().get(seat);
+                if (a.getScore() != b.getScore() || a.getCurrentQuestionIndex() != b.getCurrentQuestionIndex()
+                        || a.getAnswerTimeNanos() / 1000 != b.getAnswerTimeNanos() / 1000) {
+                    throw new IllegalStateException("Reprise avec un autre état pour " + a.getName());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Reloading questions.json after a one-line edit: the question in the
+ * middle of the file is reworded, alternately lengthening and restoring it,
+ * so both the in-place and the shifted-suffix cases are measured. A reload
+ * reads the whole file; read() times that read alone, so what the diff and
+ * parse add is the difference.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotReloadBenchmark {
+    @Param({"10000", "1000000"})
+    int size;
+
+    private Path original;
+    private Path edited;
+    private Path json;
+    private Path bank;
+    private QuestionFileWatcher watcher;
+    private ByteBuffer buffer;
+    private boolean editNext = true;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        original = QuestionLoaderBenchmark.generate(size);
+        String middle = "Question numéro " + size / 2 + " ?";
+        String text = Files.readString(original, StandardCharsets.UTF_8);
+        edited = Files.createTempFile("questions-edited-", ".json");
+        Files.writeString(edited, text.replace(middle, "Question numéro " + size / 2 + " modifiée ?"), StandardCharsets.UTF_8);
+
+        json = Files.createTempFile("questions-", ".json");
+        bank = json.resolveSibling(json.getFileName() + ".bin");
+        Files.copy(original, json, StandardCopyOption.REPLACE_EXISTING);
+        List<Question> questions = QuizGame.loadQuestions(json, bank);
+        watcher = new QuestionFileWatcher(json, questions, 3);
+        buffer = ByteBuffer.allocateDirect((int) (Files.size(edited) + 1));
+    }
+
+    @Setup(Level.Invocation)
+    public void save() throws IOException {
+        Files.copy(editNext ? edited : original, json, StandardCopyOption.REPLACE_EXISTING);
+        editNext = !editNext;
+    }
+
+    @Benchmark
+    public QuestionFileWatcher.Change reload() throws IOException {
+        return watcher.reload();
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) > 0) {
+                // keep reading
+            }
+            return buffer.position();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Path file : new Path[] {original, edited, json, bank}) {
+            Files.deleteIfExists(file);
+        }
+    }
+}
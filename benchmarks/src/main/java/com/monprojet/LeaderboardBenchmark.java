@@ -0,0 +1,118 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The all-time leaderboard: appending one finished game, and reopening a log
+ * of several sizes after a crash, when no checkpoint covers it and every
+ * game has to be replayed.
+ */
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    @State(Scope.Thread)
+    public static class Open {
+        Path dir;
+        Leaderboard leaderboard;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            dir = Files.createTempDirectory("scores");
+            leaderboard = Leaderboard.open(dir.resolve("scores.log"), dir.resolve("scores.idx"));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            leaderboard.close();
+            delete(dir);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Crashed {
+        @Param({"100000", "1000000", "10000000"})
+        int games;
+
+        Path dir;
+        Path log;
+        Path checkpoint;
+
+        // Closing writes a checkpoint; deleting it leaves the log as a crash would
+        @Setup(Level.Trial)
+        public void fill() throws IOException {
+            dir = Files.createTempDirectory("scores");
+            log = dir.resolve("scores.log");
+            checkpoint = dir.resolve("scores.idx");
+            Leaderboard leaderboard = Leaderboard.open(log, checkpoint);
+            recordGames(leaderboard, games, 10_000);
+            leaderboard.close();
+        }
+
+        @Setup(Level.Invocation)
+        public void crash() throws IOException {
+            Files.deleteIfExists(checkpoint);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            LeaderboardBenchmark.delete(dir);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void record(Open state) throws IOException {
+        state.leaderboard.record(PLAYERS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long reopenAfterCrash(Crashed state) throws IOException {
+        Leaderboard leaderboard = Leaderboard.open(state.log, state.checkpoint);
+        long games = leaderboard.getRecordedGames();
+        leaderboard.close();
+        return games;
+    }
+
+    private static final List<Player> PLAYERS = List.of(
+        player("Alice", 30), player("Bob", 20), player("Chloé", 50), player("David", 10));
+
+    // Four-player games drawn from a pool of {@code names} players, with seeded scores
+    static void recordGames(Leaderboard leaderboard, int games, int names) throws IOException {
+        Random random = new Random(42);
+        List<Player> players = new ArrayList<>(4);
+        for (int i = 0; i < games; i++) {
+            players.clear();
+            for (int j = 0; j < 4; j++) {
+                players.add(player("Joueur " + random.nextInt(names), 10 * random.nextInt(QuizEngine.QUESTIONS_PER_PLAYER + 1)));
+            }
+            leaderboard.record(players);
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static Player player(String name, int score) {
+        Player player = new Player(name);
+        player.setScore(score);
+        player.setCorrectAnswers(score / QuizEngine.POINTS_PER_CORRECT_ANSWER);
+        return player;
+    }
+}
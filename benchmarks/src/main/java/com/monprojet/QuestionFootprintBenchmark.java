@@ -0,0 +1,103 @@
+package com.monprojet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Heap retained by a bank of generated questions held as Question objects,
+ * as QuestionLoader builds them (fresh strings per entry), and packed in a
+ * ColumnarQuestionBank; then by player assignments as boxed lists and as
+ * int[]. Usage: java -Xmx4g -XX:+UseSerialGC QuestionFootprintBenchmark
+ * [questions] [players] (default 1000000 1000000).
+ */
+public class QuestionFootprintBenchmark {
+    private static final String[] CATEGORIES = {"Langages", "Linux", "Réseau", "Python", "Général"};
+    private static final String[] OPTIONS = {"C", "Java", "Python", "pip", "npm", "apt", "ls", "dir", "TCP", "UDP"};
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        // One method per measurement, so nothing from the previous one is still reachable
+        questions(size);
+        assignments(players, size);
+    }
+
+    private static void questions(int size) {
+        long base = usedHeap();
+        List<Question> objects = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            objects.add(question(i, random));
+        }
+        long objectBytes = usedHeap() - base;
+
+        ColumnarQuestionBank columnar = ColumnarQuestionBank.copyOf(objects);
+        objects = null;
+        long columnarBytes = usedHeap() - base;
+        System.out.printf("%d questions: objets %.1f Mo (%d o/question), colonnes %.1f Mo (%d o/question, %d chaînes)%n",
+            size, objectBytes / 1e6, objectBytes / size, columnarBytes / 1e6, columnarBytes / size,
+            columnar.getInternedCount());
+        check(columnar, size);
+    }
+
+    private static void assignments(int players, int size) {
+        Random random = new Random(42);
+        long base = usedHeap();
+        List<List<Integer>> boxed = new ArrayList<>(players);
+        for (int p = 0; p < players; p++) {
+            List<Integer> indices = new ArrayList<>(QuizEngine.QUESTIONS_PER_PLAYER);
+            for (int q = 0; q < QuizEngine.QUESTIONS_PER_PLAYER; q++) {
+                indices.add(random.nextInt(size));
+            }
+            boxed.add(indices);
+        }
+        long boxedBytes = usedHeap() - base;
+        Reference.reachabilityFence(boxed);
+        boxed = null;
+
+        base = usedHeap();
+        int[][] packed = new int[players][];
+        for (int p = 0; p < players; p++) {
+            packed[p] = new int[QuizEngine.QUESTIONS_PER_PLAYER];
+            for (int q = 0; q < QuizEngine.QUESTIONS_PER_PLAYER; q++) {
+                packed[p][q] = random.nextInt(size);
+            }
+        }
+        long packedBytes = usedHeap() - base;
+        Reference.reachabilityFence(packed);
+        System.out.printf("%d joueurs x %d questions: List<Integer> %.1f Mo, int[] %.1f Mo%n",
+            players, QuizEngine.QUESTIONS_PER_PLAYER, boxedBytes / 1e6, packedBytes / 1e6);
+    }
+
+    // New String instances each time, as a JSON parser produces them
+    private static Question question(int i, Random random) {
+        List<String> options = new ArrayList<>(4);
+        for (int j = 0; j < 4; j++) {
+            options.add(new String(OPTIONS[random.nextInt(OPTIONS.length)]));
+        }
+        String text = "Question " + i + " : quelle commande ou quel langage correspond à la description " + random.nextInt(1000) + " ?";
+        return new Question(text, options, random.nextInt(4), new String(CATEGORIES[i % CATEGORIES.length]));
+    }
+
+    private static void check(ColumnarQuestionBank columnar, int size) {
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Question expected = question(i, random);
+            Question actual = columnar.get(i);
+            if (!expected.getQuestion().equals(actual.getQuestion()) || !expected.getOptions().equals(actual.getOptions())
+                    || expected.getCorrectAnswer() != actual.getCorrectAnswer()
+                    || !expected.getCategory().equals(actual.getCategory())) {
+                throw new IllegalStateException("Question " + i + " différente après compactage");
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,163 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import org.json.JSONObject;
+
+/**
+ * Runs QuestionImporter on generated sources with known duplicates and
+ * checks what it drops. Usage: QuestionImporterBenchmark [records] [files]
+ * (default 1000000 8). One question in five is planted again, either
+ * exactly (other case, punctuation, accents or option order) or with a
+ * one-letter typo, in a random file among JSON, JSONL and CSV.
+ */
+public class QuestionImporterBenchmark {
+    private static final String[] FORMATS = {".jsonl", ".csv", ".json"};
+
+    public static void main(String[] args) throws IOException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int fileCount = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Path dir = Files.createTempDirectory("import-bench");
+        try {
+            Random random = new Random(42);
+            String[] words = new String[5000];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = word(random);
+            }
+
+            List<Path> files = new ArrayList<>();
+            List<Writer> writers = new ArrayList<>();
+            for (int f = 0; f < fileCount; f++) {
+                Path file = dir.resolve("source" + f + FORMATS[f % FORMATS.length]);
+                files.add(file);
+                Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+                if (file.toString().endsWith(".json")) {
+                    out.write("[\n");
+                }
+                writers.add(out);
+            }
+            boolean[] first = new boolean[fileCount];
+            Arrays.fill(first, true);
+
+            int exact = 0;
+            int near = 0;
+            int unique = 0;
+            List<Question> planted = new ArrayList<>();
+            for (int r = 0; r < records; r++) {
+                Question question;
+                if (!planted.isEmpty() && random.nextInt(5) == 0) {
+                    Question original = planted.get(random.nextInt(planted.size()));
+                    if (random.nextBoolean()) {
+                        question = disguise(original, random);
+                        exact++;
+                    } else {
+                        question = typo(original, random);
+                        near++;
+                    }
+                } else {
+                    question = fresh(words, random);
+                    unique++;
+                    if (planted.size() < 100_000) {
+                        planted.add(question);
+                    } else {
+                        planted.set(random.nextInt(planted.size()), question);
+                    }
+                }
+                int f = random.nextInt(fileCount);
+                write(writers.get(f), files.get(f).toString(), question, first[f]);
+                first[f] = false;
+            }
+            for (int f = 0; f < fileCount; f++) {
+                if (files.get(f).toString().endsWith(".json")) {
+                    writers.get(f).write("\n]\n");
+                }
+                writers.get(f).close();
+            }
+
+            long bytes = 0;
+            for (Path file : files) {
+                bytes += Files.size(file);
+            }
+            System.out.printf("%d entrées (%d Mo) : %d uniques, %d doublons exacts, %d quasi-doublons plantés%n",
+                records, bytes >> 20, unique, exact, near);
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            QuestionImporter importer = new QuestionImporter(threads, 256L << 20, 0.8);
+            long start = System.nanoTime();
+            QuestionImporter.Report report = importer.run(files, dir.resolve("questions.json"));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%.2f s sur %d threads, %.0f entrées/s%n", seconds, threads, records / seconds);
+            System.out.printf("trouvés : %d doublons exacts, %d quasi-doublons, %d écrites (attendu %d)%n",
+                report.exactDuplicates, report.nearDuplicates, report.written, unique);
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static String word(Random random) {
+        String letters = "abcdefghijklmnopqrstuvwxyzéè";
+        StringBuilder word = new StringBuilder();
+        for (int i = 3 + random.nextInt(6); i > 0; i--) {
+            word.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+
+    private static Question fresh(String[] words, Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 8 + random.nextInt(6); i > 0; i--) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        text.setCharAt(text.length() - 1, '?');
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            options.add(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]);
+        }
+        return new Question(text.toString(), options, random.nextInt(4), "Général");
+    }
+
+    // Same question once normalized: upper case, extra punctuation, accents dropped, options rotated
+    private static Question disguise(Question original, Random random) {
+        String text = original.getQuestion().toUpperCase(Locale.ROOT).replace(" ", "  ").replace("É", "E") + " !";
+        List<String> options = new ArrayList<>(original.getOptions());
+        int shift = 1 + random.nextInt(options.size() - 1);
+        Collections.rotate(options, shift);
+        return new Question(text, options, (original.getCorrectAnswer() + shift) % options.size(), original.getCategory());
+    }
+
+    private static Question typo(Question original, Random random) {
+        StringBuilder text = new StringBuilder(original.getQuestion());
+        int at = random.nextInt(text.length() - 1);
+        text.setCharAt(at, text.charAt(at) == 'x' ? 'y' : 'x');
+        return new Question(text.toString(), original.getOptions(), original.getCorrectAnswer(), original.getCategory());
+    }
+
+    private static void write(Writer out, String file, Question question, boolean first) throws IOException {
+        if (file.endsWith(".csv")) {
+            out.write('"' + question.getQuestion().replace("\"", "\"\"") + "\",\""
+                + String.join("|", question.getOptions()) + "\"," + question.getCorrectAnswer() + ","
+                + question.getCategory() + "\n");
+            return;
+        }
+        JSONObject json = new JSONObject();
+        json.put("question", question.getQuestion());
+        json.put("options", question.getOptions());
+        json.put("correct_answer", question.getCorrectAnswer());
+        json.put("category", question.getCategory());
+        if (file.endsWith(".json") && !first) {
+            out.write(",\n");
+        }
+        out.write(json.toString());
+        if (file.endsWith(".jsonl")) {
+            out.write("\n");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Admin screen searches on a generated bank whose words follow a skewed
+ * distribution, so common words hold millions of postings and rare ones a
+ * handful: a rare and a common word, one- and three-letter prefixes, a rare
+ * word AND a common prefix, and browsing one category.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class QuestionIndexBenchmark {
+    private static final String[] CATEGORIES = {"Langages", "Linux", "Réseau", "Python", "Général"};
+    private static final int PAGE = 10;
+
+    @Param({"100000", "5000000"})
+    int size;
+
+    private QuestionIndex index;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(42);
+        words = new String[50_000];
+        String letters = "abcdefghijklmnopqrstuvwxyzéè";
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int k = 3 + random.nextInt(6); k > 0; k--) {
+                word.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            words[i] = word.toString();
+        }
+        // Questions are generated as the index reads them, so only the index stays in memory
+        List<Question> bank = new AbstractList<Question>() {
+            @Override
+            public Question get(int i) {
+                Random random = new Random(i);
+                StringBuilder text = new StringBuilder();
+                for (int k = 8 + random.nextInt(6); k > 0; k--) {
+                    text.append(word(random)).append(' ');
+                }
+                text.setCharAt(text.length() - 1, '?');
+                List<String> options = Arrays.asList(word(random), word(random), word(random), word(random));
+                return new Question(text.toString(), options, random.nextInt(4), CATEGORIES[i % CATEGORIES.length]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+        index = new QuestionIndex(Runnable::run);
+        index.add(bank);
+    }
+
+    private String word(Random random) {
+        double u = random.nextDouble();
+        return words[(int) (words.length * u * u * u)];
+    }
+
+    @Benchmark
+    public QuestionIndex.Result rareWord() {
+        return index.search(words[words.length - 1] + " ", null, 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result commonWord() {
+        return index.search(words[0] + " ", null, 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result oneLetterPrefix() {
+        return index.search("q", null, 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result threeLetterPrefix() {
+        return index.search(words[100].substring(0, 3), null, 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result rareAndCommonPrefix() {
+        return index.search(words[words.length / 2] + " " + words[1].substring(0, 2), null, 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result wordInCategory() {
+        return index.search(words[5000] + " ", "Réseau", 0, PAGE);
+    }
+
+    @Benchmark
+    public QuestionIndex.Result browseCategoryLastPage() {
+        return index.search("", "Réseau", size / CATEGORIES.length - PAGE, PAGE);
+    }
+}
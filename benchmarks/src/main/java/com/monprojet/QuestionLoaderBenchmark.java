@@ -0,0 +1,128 @@
+package com.monprojet;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import org.json.*;
+
+/**
+ * Compares the legacy whole-file JSONArray parse against the streaming
+ * QuestionLoader on generated banks. Usage: QuestionLoaderBenchmark [sizes...]
+ * (default 10000 1000000 10000000).
+ */
+public class QuestionLoaderBenchmark {
+    private static final String[] CATEGORIES = {"Langages", "Linux", "Réseau", "Python", "Général"};
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0
+            ? new int[] {10_000, 1_000_000, 10_000_000}
+            : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-12s %-10s %10s %14s %12s%n", "questions", "loader", "ms", "peak heap MB", "loaded");
+        for (int size : sizes) {
+            Path file = generate(size);
+            try {
+                run(size, "legacy", () -> legacyLoad(file));
+                run(size, "streaming", () -> streamingLoad(file));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private interface Load {
+        int run() throws IOException;
+    }
+
+    private static void run(int size, String name, Load load) {
+        System.gc();
+        resetPeaks();
+        long start = System.nanoTime();
+        String loaded;
+        try {
+            loaded = String.valueOf(load.run());
+        } catch (OutOfMemoryError e) {
+            loaded = "OOM";
+        } catch (IOException e) {
+            loaded = "erreur: " + e.getMessage();
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%-12d %-10s %10d %14d %12s%n", size, name, elapsed, peakHeap() >> 20, loaded);
+    }
+
+    /** The pre-streaming initializeQuestions body, kept verbatim for comparison. */
+    private static int legacyLoad(Path file) throws IOException {
+        List<Question> questions = new ArrayList<>();
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        StringBuilder jsonString = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            jsonString.append(line);
+        }
+        reader.close();
+
+        JSONArray jsonArray = new JSONArray(jsonString.toString());
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject obj = jsonArray.getJSONObject(i);
+            String question = obj.getString("question");
+            JSONArray optionsArray = obj.getJSONArray("options");
+            List<String> options = new ArrayList<>();
+            for (int j = 0; j < optionsArray.length(); j++) {
+                options.add(optionsArray.getString(j));
+            }
+            int correctAnswer = obj.getInt("correct_answer");
+            String category = obj.optString("category", "Général");
+            questions.add(new Question(question, options, correctAnswer, category));
+        }
+        return questions.size();
+    }
+
+    /** Streams and discards, which is what bounded memory means for the loader itself. */
+    private static int streamingLoad(Path file) throws IOException {
+        int count = 0;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            QuestionLoader loader = new QuestionLoader(reader, (reason, record) -> { });
+            while (loader.next() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static Path generate(int size) throws IOException {
+        Path file = Files.createTempFile("questions-" + size + "-", ".json");
+        Random random = new Random(size);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("[\n");
+            for (int i = 0; i < size; i++) {
+                out.write("{\"question\": \"Question numéro " + i + " ?\", \"options\": [\"A" + i
+                    + "\", \"B\", \"C\", \"D\"], \"correct_answer\": " + random.nextInt(4)
+                    + ", \"category\": \"" + CATEGORIES[i % CATEGORIES.length] + "\"}");
+                out.write(i + 1 < size ? ",\n" : "\n");
+            }
+            out.write("]\n");
+        }
+        return file;
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,70 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.List;
+
+/**
+ * Per-game question assignment cost (4 players x 5 questions) as the bank
+ * grows, for the legacy shuffle-everything path and QuestionSampler.
+ * Usage: QuestionSamplerBenchmark [games] (default 10000).
+ */
+public class QuestionSamplerBenchmark {
+    private static final int PLAYERS = 4;
+    private static final int QUESTIONS_PER_PLAYER = 5;
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000, 50_000_000};
+    // Shuffling a boxed list of 50M entries per game is not worth waiting for
+    private static final int LEGACY_MAX_SIZE = 1_000_000;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        System.out.printf("%-12s %16s %16s%n", "questions", "legacy us/game", "sampler us/game");
+        for (int size : SIZES) {
+            String legacy = size <= LEGACY_MAX_SIZE
+                ? String.format("%.2f", legacy(size, Math.max(1, games * 1_000 / size)))
+                : "-";
+            System.out.printf("%-12d %16s %16.2f%n", size, legacy, sampler(size, games));
+        }
+    }
+
+    private static double legacy(int size, int games) {
+        Random random = new Random(42);
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            List<Integer> available = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                available.add(i);
+            }
+            Collections.shuffle(available, random);
+            for (int p = 0; p < PLAYERS; p++) {
+                sink += available.subList(0, Math.min(QUESTIONS_PER_PLAYER, size)).get(0);
+            }
+        }
+        return perGame(start, games, sink);
+    }
+
+    private static double sampler(int size, int games) {
+        QuestionSampler sampler = new QuestionSampler(size, new Random(42));
+        long sink = 0;
+        // Warm up on a throwaway sampler so the timed one keeps its usage pattern
+        QuestionSampler warmup = new QuestionSampler(size, new Random(7));
+        for (int g = 0; g < 1_000; g++) {
+            sink += warmup.draw(QUESTIONS_PER_PLAYER)[0];
+        }
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            for (int p = 0; p < PLAYERS; p++) {
+                sink += sampler.draw(QUESTIONS_PER_PLAYER)[0];
+            }
+        }
+        return perGame(start, games, sink);
+    }
+
+    private static double perGame(long start, int games, long sink) {
+        double micros = (System.nanoTime() - start) / 1_000.0 / games;
+        if (sink == Long.MIN_VALUE) {
+            System.out.println();
+        }
+        return micros;
+    }
+}
@@ -0,0 +1,56 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Adaptive question selection as the bank grows: recording one answer,
+ * sampling a question near a target difficulty straight from the
+ * statistics, and a full adaptive draw through QuestionSampler, which also
+ * skips questions already used in the cycle. A million answers are recorded
+ * first so the difficulty bands are populated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class QuestionStatsBenchmark {
+    private static final int ANSWERS = 1_000_000;
+
+    @Param({"1000", "1000000", "50000000"})
+    int size;
+
+    private QuestionStats stats;
+    private QuestionSampler sampler;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void record() {
+        random = new Random(42);
+        stats = new QuestionStats(size);
+        for (int i = 0; i < ANSWERS; i++) {
+            int question = random.nextInt(size);
+            // Low indices are the easy ones, so the bands fill unevenly
+            stats.record(question, random.nextInt(size) >= question, 10_000_000_000L);
+        }
+        sampler = new QuestionSampler(size, random);
+    }
+
+    @Benchmark
+    public void recordAnswer() {
+        stats.record(random.nextInt(size), random.nextBoolean(), 10_000_000_000L);
+    }
+
+    @Benchmark
+    public int sample() {
+        return stats.sample(random.nextDouble(), random);
+    }
+
+    @Benchmark
+    public int adaptiveDraw() {
+        return sampler.draw(stats, random.nextDouble());
+    }
+}
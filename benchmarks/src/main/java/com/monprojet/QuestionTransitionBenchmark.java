@@ -0,0 +1,88 @@
+package com.monprojet;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JComponent;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The full repaint of the game screen that shows the next question once the
+ * feedback is gone, with the question drawn as text and with its
+ * pre-rendered card. Between measurements the answer is given and, for
+ * cards, the renderer is left to finish as it would while a question is
+ * answered, so only the transition itself is timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class QuestionTransitionBenchmark {
+    @Param({"1024x768", "1920x1200"})
+    String size;
+
+    private QuizEngine engine;
+    private QuizGame game;
+    private JComponent component;
+    private BufferedImage image;
+    private final Random random = new Random(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        engine = new QuizEngine(QuizSimulator.generateBank(1_000, 42), new Random(42));
+        game = new QuizGame(engine, null);
+        component = game.getScreen("GAME");
+        component.setSize(width, height);
+        component.doLayout();
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Setup(Level.Invocation)
+    public void answer() throws InterruptedException {
+        if (engine.getState() == QuizEngine.State.GAME) {
+            engine.answer(random.nextInt(4), 0);
+        }
+        if (engine.getState() == QuizEngine.State.RESULTS) {
+            engine.newGame();
+        }
+        if (engine.getState() == QuizEngine.State.MENU) {
+            engine.start();
+            engine.selectPlayers(QuizEngine.MAX_PLAYERS);
+            for (int i = 1; i <= QuizEngine.MAX_PLAYERS; i++) {
+                engine.addPlayer("Joueur " + i);
+            }
+        }
+        QuestionCards cards = game.getQuestionCards();
+        String key = QuestionCards.key(engine.getCurrentQuestion());
+        for (int wait = 0; cards.getGeometry() != null && cards.get(key) == null && wait < 1000; wait++) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Dquiz.cards.ahead=0"})
+    public BufferedImage text() {
+        return paint();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+    public BufferedImage card() {
+        return paint();
+    }
+
+    private BufferedImage paint() {
+        Graphics2D g2d = image.createGraphics();
+        try {
+            component.paint(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,44 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * One answer through QuizEngine: correctness check, score update and turn
+ * advance. Every twentieth call also pays for setting up the next game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+    private QuizEngine engine;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        engine = new QuizEngine(QuizSimulator.generateBank(10_000, 42), new Random(42));
+        random = new Random(7);
+        startGame();
+    }
+
+    @Benchmark
+    public boolean answer() {
+        if (engine.getState() != QuizEngine.State.GAME) {
+            engine.newGame();
+            startGame();
+        }
+        return engine.answer(random.nextInt(4), 1_000_000L);
+    }
+
+    private void startGame() {
+        engine.start();
+        engine.selectPlayers(QuizEngine.MAX_PLAYERS);
+        for (int i = 1; i <= QuizEngine.MAX_PLAYERS; i++) {
+            engine.addPlayer("Joueur " + i);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.monprojet;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JComponent;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Paints each QuizGame screen, feedback overlay included, into an offscreen
+ * image at the screens' own 1024x768 and scaled up to 1920x1200. The first
+ * paint fills the cached static layers, so the measured repaints copy them
+ * and draw only the changing parts. The engine is driven to the state the screen expects
+ * first, the leaderboard holds a few thousand games and the admin screen
+ * lists the first page of the bank, so every panel draws real content.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ScreenRenderingBenchmark {
+    @Param({"MENU", "HELP", "PLAYER_SELECT", "NAME_INPUT", "GAME", "RESULTS", "FEEDBACK", "LEADERBOARD", "ADMIN"})
+    String screen;
+
+    @Param({"1024x768", "1920x1200"})
+    String size;
+
+    private JComponent component;
+    private BufferedImage image;
+    private Path scores;
+    private Leaderboard leaderboard;
+
+    @Setup
+    public void setUp() throws IOException {
+        scores = Files.createTempDirectory("scores");
+        leaderboard = Leaderboard.open(scores.resolve("scores.log"), scores.resolve("scores.idx"));
+        LeaderboardBenchmark.recordGames(leaderboard, 5_000, 200);
+
+        QuizEngine engine = new QuizEngine(QuizSimulator.generateBank(1_000, 42), new Random(42));
+        QuizGame game = new QuizGame(engine, leaderboard);
+        if (!screen.equals("MENU") && !screen.equals("HELP")) {
+            engine.start();
+        }
+        if (screen.equals("NAME_INPUT")) {
+            engine.selectPlayers(QuizEngine.MAX_PLAYERS);
+            engine.addPlayer("Joueur 1");
+        } else if (screen.equals("GAME") || screen.equals("RESULTS") || screen.equals("FEEDBACK")) {
+            engine.selectPlayers(QuizEngine.MAX_PLAYERS);
+            for (int i = 1; i <= QuizEngine.MAX_PLAYERS; i++) {
+                engine.addPlayer("Joueur " + i);
+            }
+            // One wrong answer gives the overlay its longest message
+            engine.answer(-1, 0);
+            Random random = new Random(1);
+            while (screen.equals("RESULTS") && engine.getState() == QuizEngine.State.GAME) {
+                engine.answer(random.nextInt(4), 0);
+            }
+        }
+
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        component = game.getScreen(screen);
+        component.setSize(width, height);
+        component.doLayout();
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        leaderboard.close();
+        LeaderboardBenchmark.delete(scores);
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g2d = image.createGraphics();
+        try {
+            component.paint(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+}
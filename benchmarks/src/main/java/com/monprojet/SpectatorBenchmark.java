@@ -0,0 +1,181 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Capacity of SpectatorFeed. Plays simulated games into a feed file, a
+ * frame per timer tick, while viewer processes follow it, each running many
+ * readers on threads of their own with their own mapping of the file.
+ * Reports what publishing costs the game per frame and, per viewer process,
+ * the delay from publication to a reader applying the frame (both sides
+ * read System.nanoTime, the system's monotonic clock on Linux), how often
+ * readers fell a ring behind, and how many ended on another state than a
+ * reader started afresh from the latest keyframe.
+ * Usage: SpectatorBenchmark [viewers] [seconds] [processes] [frames/s] [poll us]
+ * (default 400 viewers, 10 s, 4 processes, 60 frames/s, each reader polling every 1000 us).
+ */
+public class SpectatorBenchmark {
+    private static final String[] NAMES = {"Joueur 1", "Joueur 2", "Joueur 3", "Joueur 4"};
+    // Viewer processes: cleared once the publisher is done
+    private static volatile boolean viewing = true;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("view")) {
+            view(Paths.get(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            return;
+        }
+        int viewers = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int processes = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        long pollMicros = args.length > 4 ? Long.parseLong(args[4]) : 1000;
+
+        Path dir = Files.createTempDirectory("spectateurs");
+        Path file = dir.resolve("spectateurs.feed");
+        Path warmup = dir.resolve("warmup.feed");
+        List<Process> children = new ArrayList<>();
+        try {
+            // A game publishes too few frames for the JIT to reach them within a run; a file of their own,
+            // so no viewer sees these
+            publish(SpectatorFeed.open(warmup, 256 << 10), 1, 20_000);
+            SpectatorFeed feed = SpectatorFeed.open(file, 256 << 10);
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            for (int p = 0; p < processes; p++) {
+                int count = viewers / processes + (p < viewers % processes ? 1 : 0);
+                children.add(new ProcessBuilder(java, "-Xmx64m", "-Xss256k", "-XX:+UseSerialGC",
+                    "-cp", System.getProperty("java.class.path"), SpectatorBenchmark.class.getName(),
+                    "view", file.toString(), Integer.toString(count), Long.toString(pollMicros))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start());
+            }
+            List<BufferedReader> outputs = new ArrayList<>();
+            for (Process child : children) {
+                BufferedReader output = new BufferedReader(
+                    new InputStreamReader(child.getInputStream(), StandardCharsets.US_ASCII));
+                // Every reader is mapped and polling before the first frame
+                output.readLine();
+                outputs.add(output);
+            }
+
+            LatencyHistogram cost = publish(feed, seconds, rate);
+            System.out.printf("%d trames en %d s (%.0f/s), %.0f octets/trame, "
+                    + "publication p50 %.2f us, p99 %.2f us, max %.2f us%n",
+                feed.getPublished(), seconds, (double) feed.getPublished() / seconds,
+                (double) feed.getBytes() / feed.getPublished(), cost.getPercentile(50) / 1e3,
+                cost.getPercentile(99) / 1e3, cost.getMax() / 1e3);
+
+            // Closing a viewer's input tells it the game is over
+            for (Process child : children) {
+                child.getOutputStream().close();
+            }
+            for (int p = 0; p < children.size(); p++) {
+                // count, frames applied, latency p50, p99, p99.9 and max in us, resyncs, mismatches
+                String[] result = outputs.get(p).readLine().split(" ");
+                System.out.println("processus " + p + ": " + String.format("%s spectateurs, %s trames appliquées, "
+                    + "latence p50 %s us, p99 %s us, p99.9 %s us, max %s us, %s rattrapages, %s divergences",
+                    (Object[]) result));
+                children.get(p).waitFor();
+            }
+        } finally {
+            for (Process child : children) {
+                child.destroy();
+            }
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(warmup);
+            Files.delete(dir);
+        }
+    }
+
+    // Four players answering after 20 to 400 ticks, the timer losing a thousandth of its limit per tick
+    private static LatencyHistogram publish(SpectatorFeed feed, int seconds, int rate) {
+        Random random = new Random(42);
+        QuizEngine engine = new QuizEngine(QuizSimulator.generateBank(1000, 42), new Random(42));
+        LatencyHistogram cost = new LatencyHistogram();
+        long period = 1_000_000_000L / rate;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        int timer = 1000;
+        int answerAt = 0;
+        for (long next = System.nanoTime(); next < end; next += period) {
+            if (engine.getState() == QuizEngine.State.RESULTS) {
+                engine.newGame();
+            }
+            if (engine.getState() == QuizEngine.State.MENU) {
+                engine.start();
+                engine.selectPlayers(NAMES.length);
+                for (String name : NAMES) {
+                    engine.addPlayer(name);
+                }
+                timer = 1000;
+                answerAt = 1000 - 20 - random.nextInt(380);
+            } else if (--timer <= answerAt) {
+                engine.answer(timer == 0 ? -1 : random.nextInt(4), (1000 - timer) * 30_000_000L);
+                timer = 1000;
+                answerAt = 1000 - 20 - random.nextInt(380);
+            }
+            long start = System.nanoTime();
+            feed.publish(engine.getState(), engine.getPlayers(), engine.getCurrentPlayer(),
+                engine.getCurrentQuestion(), timer);
+            cost.record(System.nanoTime() - start);
+            LockSupport.parkNanos(next + period - System.nanoTime());
+        }
+        return cost;
+    }
+
+    private static void view(Path file, int count, long pollMicros) throws IOException, InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder resyncs = new LongAdder();
+        LongAdder mismatches = new LongAdder();
+        List<SpectatorFeed.Reader> readers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            readers.add(SpectatorFeed.Reader.open(file));
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (SpectatorFeed.Reader reader : readers) {
+            Thread thread = new Thread(() -> {
+                SpectatorFeed.View view = new SpectatorFeed.View();
+                boolean last = false;
+                while (!last) {
+                    // Read before draining, so the final drain sees everything published
+                    last = !viewing;
+                    while (reader.poll(view)) {
+                        latency.record(System.nanoTime() - view.getPublishedNanos());
+                    }
+                    LockSupport.parkNanos(pollMicros * 1000);
+                }
+                SpectatorFeed.View fresh = new SpectatorFeed.View();
+                try {
+                    SpectatorFeed.Reader check = SpectatorFeed.Reader.open(file);
+                    while (check.poll(fresh)) {
+                        // Catching up from the keyframe
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!fresh.toString().equals(view.toString())) {
+                    mismatches.increment();
+                }
+                resyncs.add(reader.getResyncs());
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        System.out.println("ready");
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            // Until the publisher is done
+        }
+        viewing = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%d %d %d %d %d %d %d %d%n", count, latency.getCount(), latency.getPercentile(50) / 1000,
+            latency.getPercentile(99) / 1000, latency.getPercentile(99.9) / 1000, latency.getMax() / 1000,
+            resyncs.sum(), mismatches.sum());
+    }
+}
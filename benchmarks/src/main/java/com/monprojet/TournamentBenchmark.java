@@ -0,0 +1,54 @@
+package com.monprojet;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A whole simulated Swiss tournament, every round of it, on a ForkJoinPool
+ * with one worker per core and a 10,000-question bank.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TournamentBenchmark {
+    @Param({"10000", "100000"})
+    int participants;
+
+    private List<Question> bank;
+    private String[] names;
+    private Tournament.Contestant contestant;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bank = QuizSimulator.generateBank(10_000, 42);
+        names = new String[participants];
+        for (int p = 0; p < participants; p++) {
+            names[p] = "Joueur " + (p + 1);
+        }
+        contestant = Tournament.simulated(participants, 42);
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Tournament tournament() {
+        Tournament tournament = new Tournament(bank, names, Tournament.defaultRounds(participants), 42);
+        while (!tournament.isFinished()) {
+            tournament.playRound(pool, contestant);
+        }
+        if (Tournament.repeatedQuestions(tournament) != 0) {
+            throw new IllegalStateException("Question répétée pendant le tournoi");
+        }
+        return tournament;
+    }
+}
@@ -0,0 +1,155 @@
+package com.monprojet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Read-only question bank held in the heap by column rather than as one
+ * object graph per question. Question texts are packed as UTF-8 into a
+ * shared byte arena; categories and options are interned once in a string
+ * pool and referenced by id, so the "C", "Java" or "Général" repeated across
+ * millions of questions cost four bytes each. A question costs about its
+ * text plus 33 bytes with four options, against several hundred for a
+ * Question with its own strings and option list.
+ *
+ * {@link #get(int)} rebuilds a Question on each call, so the UI keeps using
+ * getQuestion(), getOptions() and getCorrectAnswer() unchanged.
+ */
+class ColumnarQuestionBank extends AbstractList<Question> implements RandomAccess {
+    // Texts never straddle a page, so one (position, length) pair locates each
+    private static final int PAGE_BITS = 24;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long LENGTH_MASK = PAGE_SIZE - 1;
+
+    private final int size;
+    private final byte[][] pages;
+    // Per question: arena position << PAGE_BITS | text length in bytes
+    private final long[] texts;
+    private final byte[] correctAnswers;
+    private final int[] categories;
+    // Options of question i are options[optionStarts[i]] to options[optionStarts[i + 1]]
+    private final int[] optionStarts;
+    private final int[] options;
+    private final String[] strings;
+
+    private ColumnarQuestionBank(int size, byte[][] pages, long[] texts, byte[] correctAnswers,
+            int[] categories, int[] optionStarts, int[] options, String[] strings) {
+        this.size = size;
+        this.pages = pages;
+        this.texts = texts;
+        this.correctAnswers = correctAnswers;
+        this.categories = categories;
+        this.optionStarts = optionStarts;
+        this.options = options;
+        this.strings = strings;
+    }
+
+    /** Packs every question produced by {@code source}, until it returns null. */
+    public static ColumnarQuestionBank build(Supplier<Question> source) {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<byte[]> pages = new ArrayList<>();
+        byte[] page = new byte[0];
+        int pageUsed = 0;
+        long[] texts = new long[1024];
+        byte[] correctAnswers = new byte[1024];
+        int[] categories = new int[1024];
+        int[] optionStarts = new int[1025];
+        int[] options = new int[4096];
+        int size = 0;
+        int optionCount = 0;
+
+        Question question;
+        while ((question = source.get()) != null) {
+            byte[] text = question.getQuestion().getBytes(StandardCharsets.UTF_8);
+            if (text.length >= PAGE_SIZE || question.getOptions().size() > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Question #" + (size + 1) + " dépasse les limites de la banque");
+            }
+            if (pageUsed + text.length > page.length) {
+                if (pageUsed + text.length <= PAGE_SIZE) {
+                    // The current page grows gradually, so a bank of a few questions stays small
+                    int capacity = Math.max(Math.max(4096, page.length * 2), pageUsed + text.length);
+                    page = Arrays.copyOf(page, Math.min(capacity, PAGE_SIZE));
+                    if (pages.isEmpty()) {
+                        pages.add(page);
+                    } else {
+                        pages.set(pages.size() - 1, page);
+                    }
+                } else {
+                    page = new byte[PAGE_SIZE];
+                    pages.add(page);
+                    pageUsed = 0;
+                }
+            }
+            if (size == texts.length) {
+                int capacity = size + (size >> 1);
+                texts = Arrays.copyOf(texts, capacity);
+                correctAnswers = Arrays.copyOf(correctAnswers, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                optionStarts = Arrays.copyOf(optionStarts, capacity + 1);
+            }
+            System.arraycopy(text, 0, page, pageUsed, text.length);
+            long position = (long) (pages.size() - 1) * PAGE_SIZE + pageUsed;
+            texts[size] = position << PAGE_BITS | text.length;
+            pageUsed += text.length;
+
+            correctAnswers[size] = (byte) question.getCorrectAnswer();
+            categories[size] = intern(question.getCategory(), stringIds, strings);
+            if (optionCount + question.getOptions().size() > options.length) {
+                options = Arrays.copyOf(options, options.length + (options.length >> 1));
+            }
+            for (String option : question.getOptions()) {
+                options[optionCount++] = intern(option, stringIds, strings);
+            }
+            optionStarts[++size] = optionCount;
+        }
+
+        if (!pages.isEmpty()) {
+            pages.set(pages.size() - 1, Arrays.copyOf(page, pageUsed));
+        }
+        return new ColumnarQuestionBank(size, pages.toArray(new byte[0][]), Arrays.copyOf(texts, size),
+            Arrays.copyOf(correctAnswers, size), Arrays.copyOf(categories, size),
+            Arrays.copyOf(optionStarts, size + 1), Arrays.copyOf(options, optionCount),
+            strings.toArray(new String[0]));
+    }
+
+    public static ColumnarQuestionBank copyOf(List<Question> questions) {
+        Iterator<Question> it = questions.iterator();
+        return build(() -> it.hasNext() ? it.next() : null);
+    }
+
+    private static int intern(String value, Map<String, Integer> ids, List<String> strings) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = strings.size();
+            ids.put(value, id);
+            strings.add(value);
+        }
+        return id;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Question get(int i) {
+        Objects.checkIndex(i, size);
+        long text = texts[i];
+        long position = text >>> PAGE_BITS;
+        String question = new String(pages[(int) (position >>> PAGE_BITS)], (int) (position & LENGTH_MASK),
+            (int) (text & LENGTH_MASK), StandardCharsets.UTF_8);
+        String[] choices = new String[optionStarts[i + 1] - optionStarts[i]];
+        for (int j = 0; j < choices.length; j++) {
+            choices[j] = strings[options[optionStarts[i] + j]];
+        }
+        return new Question(question, Arrays.asList(choices), correctAnswers[i], strings[categories[i]]);
+    }
+
+    /** Distinct category and option strings, each stored once. */
+    public int getInternedCount() {
+        return strings.length;
+    }
+}
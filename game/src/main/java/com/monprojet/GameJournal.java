@@ -0,0 +1,618 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of every game event: game started, player
+ * joined, question assigned and shown, answer (key, correctness, latency,
+ * timeout), game ended or abandoned. Recording only copies the event into a
+ * ring buffer under a short lock; a background thread writes the buffered
+ * events as one frame every {@link #FLUSH_INTERVAL_MILLIS}, or as soon as
+ * the ring is half full, and syncs the file at most once per second, so the
+ * input path never waits on the disk. When the ring is full anyway the event
+ * is dropped and counted rather than waited for.
+ *
+ * Frame (big-endian): int payload length, int CRC32 of the payload, then
+ * events. A frame torn by a crash fails its length or CRC check and is cut
+ * off when the journal is opened. Each event starts with a type byte and the
+ * game id; ids, question indices and latencies are unsigned varints:
+ * <pre>
+ * STARTED   game, long time in millis, varint bank size, byte players, byte questions per player
+ * JOINED    game, byte seat, short length and UTF-8 name
+ * ASSIGNED  game, byte seat, byte count, count questions (appended to the seat's list)
+ * SHOWN     game, byte seat (its next assigned question)
+ * ANSWERED  game, byte seat, question, byte key + 1 (0 on timeout) | 0x80 if correct, latency in micros
+ * ENDED     game
+ * ABANDONED game
+ * </pre>
+ * A game without ENDED or ABANDONED was interrupted; {@link QuizEngine#resume}
+ * rebuilds it from its events.
+ *
+ * Checkpoint: int magic "GJX1", long journal position covered, int next game
+ * id, long length and CRC of the journal's first frame. It is rewritten after
+ * a sync whenever a frame ended with no game open, so opening only scans the
+ * frames written since the last game ended; a checkpoint whose first frame
+ * does not match the journal is ignored.
+ */
+class GameJournal implements Closeable {
+    static final int STARTED = 1;
+    static final int JOINED = 2;
+    static final int ASSIGNED = 3;
+    static final int SHOWN = 4;
+    static final int ANSWERED = 5;
+    static final int ENDED = 6;
+    static final int ABANDONED = 7;
+    private static final int RING_SIZE = 1 << 22;
+    // Longest event: a JOINED with its name, or an ASSIGNED of MAX_ASSIGNED questions
+    private static final int MAX_EVENT = 256;
+    private static final int MAX_ASSIGNED = 40;
+    private static final long FLUSH_INTERVAL_MILLIS = 20;
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final int MAGIC = 0x474A5831;
+
+    /** Callbacks for {@link #scan}; names are the only allocation per event. */
+    interface Visitor {
+        default void started(int game, long timeMillis, int bankSize, int players, int questionsPerPlayer) { }
+        default void joined(int game, int seat, String name) { }
+        default void assigned(int game, int seat, int question) { }
+        default void shown(int game, int seat) { }
+
+        /** {@code selected} is -1 on timeout. */
+        default void answered(int game, int seat, int question, int selected, boolean correct, int latencyMicros) { }
+        default void ended(int game, boolean finished) { }
+    }
+
+    /** One game as journaled, enough to rebuild it in an engine. */
+    static final class Game {
+        final int id;
+        final int bankSize;
+        final int questionsPerPlayer;
+        final String[] names;
+        final int[][] assigned;
+        final int[] assignedCount;
+        boolean finished;
+        int answers;
+        int[] answerSeats = new int[16];
+        int[] answerQuestions = new int[16];
+        int[] answerSelected = new int[16];
+        int[] answerMicros = new int[16];
+
+        Game(int id, int bankSize, int players, int questionsPerPlayer) {
+            this.id = id;
+            this.bankSize = bankSize;
+            this.questionsPerPlayer = questionsPerPlayer;
+            this.names = new String[players];
+            this.assigned = new int[players][questionsPerPlayer];
+            this.assignedCount = new int[players];
+        }
+
+        void assign(int seat, int question) {
+            if (assignedCount[seat] == assigned[seat].length) {
+                assigned[seat] = Arrays.copyOf(assigned[seat], Math.max(4, assignedCount[seat] * 2));
+            }
+            assigned[seat][assignedCount[seat]++] = question;
+        }
+
+        void answer(int seat, int question, int selected, int micros) {
+            if (answers == answerSeats.length) {
+                int capacity = answers * 2;
+                answerSeats = Arrays.copyOf(answerSeats, capacity);
+                answerQuestions = Arrays.copyOf(answerQuestions, capacity);
+                answerSelected = Arrays.copyOf(answerSelected, capacity);
+                answerMicros = Arrays.copyOf(answerMicros, capacity);
+            }
+            answerSeats[answers] = seat;
+            answerQuestions[answers] = question;
+            answerSelected[answers] = selected;
+            answerMicros[answers] = micros;
+            answers++;
+        }
+
+        public int getId() { return id; }
+    }
+
+    // Rebuilds the games still open at the end of the journal, or the one game asked for
+    private static final class Collector implements Visitor {
+        final Map<Integer, Game> games = new LinkedHashMap<>();
+        final int only;
+        int maxGame = -1;
+
+        Collector(int only) {
+            this.only = only;
+        }
+
+        @Override
+        public void started(int game, long timeMillis, int bankSize, int players, int questionsPerPlayer) {
+            maxGame = Math.max(maxGame, game);
+            if (only < 0 || game == only) {
+                games.put(game, new Game(game, bankSize, players, questionsPerPlayer));
+            }
+        }
+
+        @Override
+        public void joined(int game, int seat, String name) {
+            Game g = games.get(game);
+            if (g != null && seat < g.names.length) {
+                g.names[seat] = name;
+            }
+        }
+
+        @Override
+        public void assigned(int game, int seat, int question) {
+            Game g = games.get(game);
+            if (g != null && seat < g.names.length) {
+                g.assign(seat, question);
+            }
+        }
+
+        @Override
+        public void answered(int game, int seat, int question, int selected, boolean correct, int latencyMicros) {
+            Game g = games.get(game);
+            if (g != null) {
+                g.answer(seat, question, selected, latencyMicros);
+            }
+        }
+
+        @Override
+        public void ended(int game, boolean finished) {
+            if (only < 0) {
+                games.remove(game);
+            } else if (game == only) {
+                games.get(game).finished = finished;
+            }
+        }
+    }
+
+    private final FileChannel channel;
+    private final Path checkpoint;
+    private final ScheduledExecutorService writer;
+    private List<Game> interrupted;
+    private final byte[] ring = new byte[RING_SIZE];
+    private final byte[] scratch = new byte[MAX_EVENT];
+    private final CRC32 crc = new CRC32();
+    // Producers advance head under the lock; only the writer advances tail
+    private long head;
+    private volatile long tail;
+    private int nextGame;
+    // Games started and not ended yet, as recorded
+    private final Set<Integer> openGames = new HashSet<>();
+    private long dropped;
+    private boolean flushRequested;
+    private long lastSync;
+    private boolean dirty;
+    // Writer thread: end of the last frame written with no game open, the next game id then,
+    // and the position the checkpoint file covers
+    private long quietPosition;
+    private int quietNextGame;
+    private long checkpointed;
+
+    private GameJournal(FileChannel channel, Path checkpoint) {
+        this.channel = channel;
+        this.checkpoint = checkpoint;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "game-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens (or creates) the journal and its checkpoint, cutting off a torn
+     * tail and collecting the interrupted games among those the checkpoint
+     * does not cover.
+     */
+    public static GameJournal open(Path file, Path checkpointFile) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            GameJournal journal = new GameJournal(channel, checkpointFile);
+            long position = journal.loadCheckpoint();
+            Collector collector = new Collector(-1);
+            long end = scan(channel, position, collector);
+            if (end < channel.size()) {
+                System.err.println(file + ": fin du journal illisible ignorée (" + (channel.size() - end) + " octets)");
+                channel.truncate(end);
+            }
+            channel.position(end);
+            journal.nextGame = Math.max(journal.nextGame, collector.maxGame + 1);
+            journal.interrupted = new ArrayList<>(collector.games.values());
+            journal.openGames.addAll(collector.games.keySet());
+            journal.writer.scheduleWithFixedDelay(journal::flush,
+                FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Games that neither ended nor were abandoned when the journal was last closed, oldest first. */
+    public List<Game> getInterrupted() {
+        return interrupted;
+    }
+
+    /** Events lost because the ring was full when they were recorded. */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /** Journals a new game and returns its id. */
+    public synchronized int started(int bankSize, List<Player> players, int questionsPerPlayer) {
+        int game = nextGame++;
+        openGames.add(game);
+        int n = header(STARTED, game);
+        n = putLong(n, System.currentTimeMillis());
+        n = putVarint(n, bankSize);
+        scratch[n++] = (byte) players.size();
+        scratch[n++] = (byte) questionsPerPlayer;
+        append(n);
+        for (int seat = 0; seat < players.size(); seat++) {
+            byte[] name = players.get(seat).getName().getBytes(StandardCharsets.UTF_8);
+            n = header(JOINED, game);
+            int length = Math.min(name.length, MAX_EVENT - n - 3);
+            scratch[n++] = (byte) seat;
+            scratch[n++] = (byte) (length >>> 8);
+            scratch[n++] = (byte) length;
+            System.arraycopy(name, 0, scratch, n, length);
+            append(n + length);
+        }
+        return game;
+    }
+
+    /** Appends {@code questions[0, count)} to the seat's questions. */
+    public synchronized void assigned(int game, int seat, int[] questions, int count) {
+        for (int from = 0; from < count; from += MAX_ASSIGNED) {
+            int to = Math.min(count, from + MAX_ASSIGNED);
+            int n = header(ASSIGNED, game);
+            scratch[n++] = (byte) seat;
+            scratch[n++] = (byte) (to - from);
+            for (int q = from; q < to; q++) {
+                n = putVarint(n, questions[q]);
+            }
+            append(n);
+        }
+    }
+
+    public synchronized void shown(int game, int seat) {
+        int n = header(SHOWN, game);
+        scratch[n++] = (byte) seat;
+        append(n);
+    }
+
+    /** {@code selected} is -1 on timeout. */
+    public synchronized void answered(int game, int seat, int question, int selected, boolean correct, long answerNanos) {
+        int n = header(ANSWERED, game);
+        scratch[n++] = (byte) seat;
+        n = putVarint(n, question);
+        scratch[n++] = (byte) ((selected + 1) | (correct ? 0x80 : 0));
+        n = putVarint(n, (int) Math.min(Integer.MAX_VALUE, answerNanos / 1000));
+        append(n);
+    }
+
+    public synchronized void ended(int game, boolean finished) {
+        openGames.remove(game);
+        append(header(finished ? ENDED : ABANDONED, game));
+    }
+
+    private int header(int type, int game) {
+        scratch[0] = (byte) type;
+        return putVarint(1, game);
+    }
+
+    private int putVarint(int n, int value) {
+        while ((value & ~0x7F) != 0) {
+            scratch[n++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        scratch[n++] = (byte) value;
+        return n;
+    }
+
+    private int putLong(int n, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            scratch[n++] = (byte) (value >>> shift);
+        }
+        return n;
+    }
+
+    // Copies the event in scratch[0, length) into the ring, or drops it if the writer is too far behind
+    private void append(int length) {
+        if (head + length - tail > RING_SIZE) {
+            dropped++;
+            return;
+        }
+        int at = (int) (head & (RING_SIZE - 1));
+        int first = Math.min(length, RING_SIZE - at);
+        System.arraycopy(scratch, 0, ring, at, first);
+        System.arraycopy(scratch, first, ring, 0, length - first);
+        head += length;
+        // Past half full, the writer is woken rather than left to its next tick
+        if (!flushRequested && head - tail > RING_SIZE / 2) {
+            flushRequested = true;
+            try {
+                writer.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Closed: close() has flushed what it could
+            }
+        }
+    }
+
+    // Writes what the ring holds as one frame; runs on the writer thread, or on close once it has stopped
+    private void flush() {
+        long end;
+        boolean quiet;
+        int next;
+        synchronized (this) {
+            end = head;
+            flushRequested = false;
+            quiet = openGames.isEmpty();
+            next = nextGame;
+        }
+        long start = tail;
+        try {
+            if (end > start) {
+                int length = (int) (end - start);
+                int at = (int) (start & (RING_SIZE - 1));
+                int first = Math.min(length, RING_SIZE - at);
+                crc.reset();
+                crc.update(ring, at, first);
+                crc.update(ring, 0, length - first);
+                ByteBuffer[] frame = {
+                    ByteBuffer.allocate(8).putInt(length).putInt((int) crc.getValue()).flip(),
+                    ByteBuffer.wrap(ring, at, first),
+                    ByteBuffer.wrap(ring, 0, length - first)
+                };
+                while (frame[0].hasRemaining() || frame[1].hasRemaining() || frame[2].hasRemaining()) {
+                    channel.write(frame);
+                }
+                tail = end;
+                dirty = true;
+                if (quiet) {
+                    quietPosition = channel.position();
+                    quietNextGame = next;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (dirty && now - lastSync >= SYNC_INTERVAL_MILLIS) {
+                channel.force(false);
+                dirty = false;
+                lastSync = now;
+                // Only synced frames are covered, so a crash never leaves the checkpoint past the journal
+                if (quietPosition > checkpointed) {
+                    writeCheckpoint(quietPosition, quietNextGame);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Journal des parties: écriture impossible - " + e.getMessage());
+        }
+    }
+
+    /** Writes and syncs everything recorded so far. */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!channel.isOpen()) {
+            return;
+        }
+        lastSync = 0;
+        flush();
+        channel.close();
+    }
+
+    /** Rebuilds one game, ended or not, for a deterministic replay; null if the journal has no such game. */
+    public static Game read(Path file, int game) throws IOException {
+        Collector collector = new Collector(game);
+        scan(file, collector);
+        return collector.games.get(game);
+    }
+
+    /** Reads every event of a journal file in order; returns the end of the last intact frame. */
+    public static long scan(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return scan(channel, 0, visitor);
+        }
+    }
+
+    private void writeCheckpoint(long position, int next) {
+        try {
+            Path dir = checkpoint.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, "games", ".tmp");
+            try {
+                try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(position);
+                    out.writeInt(next);
+                    out.writeLong(firstFrame(channel));
+                    out.flush();
+                    file.getFD().sync();
+                }
+                Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                checkpointed = position;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println(checkpoint + ": sauvegarde de l'index impossible - " + e.getMessage());
+        }
+    }
+
+    // Returns the journal position the checkpoint covers, or 0 when it is missing or does not match the journal
+    private long loadCheckpoint() {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("format inconnu");
+            }
+            long position = in.readLong();
+            int next = in.readInt();
+            if (position > channel.size()) {
+                throw new IOException("plus récent que le journal");
+            }
+            if (in.readLong() != firstFrame(channel)) {
+                throw new IOException("écrit pour un autre journal");
+            }
+            nextGame = next;
+            quietPosition = position;
+            quietNextGame = next;
+            checkpointed = position;
+            return position;
+        } catch (IOException e) {
+            System.err.println(checkpoint + ": index ignoré, relecture complète du journal (" + e.getMessage() + ")");
+            return 0;
+        }
+    }
+
+    // Length and CRC of the first frame, which tell one journal from another
+    private static long firstFrame(FileChannel channel) throws IOException {
+        if (channel.size() < 8) {
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(channel, header, 0);
+        return header.getLong(0);
+    }
+
+    private static long scan(FileChannel channel, long position, Visitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + RING_SIZE);
+        CRC32 crc = new CRC32();
+        long size = channel.size();
+        while (position + 8 <= size) {
+            buffer.clear().limit(8);
+            readFully(channel, buffer, position);
+            int length = buffer.getInt(0);
+            int checksum = buffer.getInt(4);
+            if (length <= 0 || length > RING_SIZE || position + 8 + length > size) {
+                break;
+            }
+            buffer.clear().limit(length);
+            readFully(channel, buffer, position + 8);
+            crc.reset();
+            crc.update(buffer.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            buffer.flip();
+            decode(buffer, visitor);
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void decode(ByteBuffer frame, Visitor visitor) {
+        while (frame.hasRemaining()) {
+            int type = frame.get();
+            int game = getVarint(frame);
+            switch (type) {
+                case STARTED: {
+                    long time = frame.getLong();
+                    int bankSize = getVarint(frame);
+                    int players = frame.get();
+                    visitor.started(game, time, bankSize, players, frame.get());
+                    break;
+                }
+                case JOINED: {
+                    int seat = frame.get();
+                    byte[] name = new byte[frame.getShort() & 0xFFFF];
+                    frame.get(name);
+                    visitor.joined(game, seat, new String(name, StandardCharsets.UTF_8));
+                    break;
+                }
+                case ASSIGNED: {
+                    int seat = frame.get();
+                    for (int count = frame.get(); count > 0; count--) {
+                        visitor.assigned(game, seat, getVarint(frame));
+                    }
+                    break;
+                }
+                case SHOWN:
+                    visitor.shown(game, frame.get());
+                    break;
+                case ANSWERED: {
+                    int seat = frame.get();
+                    int question = getVarint(frame);
+                    int key = frame.get();
+                    visitor.answered(game, seat, question, (key & 0x7F) - 1, key < 0, getVarint(frame));
+                    break;
+                }
+                case ENDED:
+                case ABANDONED:
+                    visitor.ended(game, type == ENDED);
+                    break;
+                default:
+                    throw new IllegalStateException("Événement de journal inconnu: " + type);
+            }
+        }
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Summarises a journal: games played, finished and abandoned, answers,
+     * success rate, timeouts, mean latency and the keys pressed.
+     * Usage: GameJournal [journal] (default games.journal).
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "games.journal");
+        long[] counts = new long[8];
+        long[] keys = new long[5];
+        long start = System.nanoTime();
+        scan(file, new Visitor() {
+            @Override
+            public void started(int game, long timeMillis, int bankSize, int players, int questionsPerPlayer) {
+                counts[0]++;
+            }
+
+            @Override
+            public void answered(int game, int seat, int question, int selected, boolean correct, int latencyMicros) {
+                counts[1]++;
+                counts[2] += correct ? 1 : 0;
+                counts[3] += latencyMicros;
+                keys[selected + 1]++;
+            }
+
+            @Override
+            public void ended(int game, boolean finished) {
+                counts[finished ? 4 : 5]++;
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d parties (%d terminées, %d abandonnées), lues en %.2f s%n",
+            counts[0], counts[4], counts[5], seconds);
+        if (counts[1] > 0) {
+            System.out.printf("%d réponses, %.1f%% justes, %.1f%% hors délai, %.2f s en moyenne%n",
+                counts[1], 100.0 * counts[2] / counts[1], 100.0 * keys[0] / counts[1], counts[3] / 1e6 / counts[1]);
+            System.out.printf("touches 1-4: %d %d %d %d%n", keys[1], keys[2], keys[3], keys[4]);
+        }
+    }
+}
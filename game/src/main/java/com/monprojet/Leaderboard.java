@@ -0,0 +1,374 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * All-time scores kept across sessions. Every finished game is appended to a
+ * log; each player's best game and the top {@link #TOP_SIZE} players are kept
+ * up to date in memory, so reading them never sorts anything. The log is
+ * synced to disk in the background at most once per second, and the index is
+ * checkpointed every {@link #CHECKPOINT_INTERVAL} games so opening only
+ * replays the games recorded since.
+ *
+ * Log record (big-endian): int payload length, int CRC32 of the payload, then
+ * long time in millis, byte player count and per player (name as written by
+ * DataOutput.writeUTF, int score, int correct answers). A record torn by a crash fails its
+ * length or CRC check and is cut off when the log is opened.
+ *
+ * Checkpoint: int magic "LBX2", long log position covered, long games
+ * recorded up to there, long length and CRC of the log's first record and
+ * of the record ending at that position, int player count,
+ * then per player (name, int best score, int correct
+ * answers in that game, int games played), top players first. A checkpoint
+ * whose records do not match the log, or after which the log does not
+ * replay to its end, is ignored and the whole log replayed instead.
+ */
+class Leaderboard implements Closeable {
+    static final int TOP_SIZE = 10;
+    private static final int MAGIC = 0x4C425832;
+    private static final int MAX_RECORD = 0xFFFF;
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final int CHECKPOINT_INTERVAL = 100_000;
+
+    static final class Entry {
+        private final String name;
+        private int bestScore = -1;
+        private int bestCorrectAnswers;
+        private int games;
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+        public int getBestScore() { return bestScore; }
+        public int getBestCorrectAnswers() { return bestCorrectAnswers; }
+        public int getGames() { return games; }
+    }
+
+    private final Path checkpoint;
+    private final FileChannel log;
+    private final ScheduledExecutorService syncer;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Entry[] top = new Entry[TOP_SIZE];
+    private int topCount;
+    private List<Entry> topView = List.of();
+    private long recordedGames;
+    // Length and CRC of the last record appended or replayed
+    private long lastRecord;
+    private int sinceCheckpoint;
+    private volatile boolean dirty;
+
+    private Leaderboard(Path checkpoint, FileChannel log) {
+        this.checkpoint = checkpoint;
+        this.log = log;
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "leaderboard-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Opens (or creates) the log and its checkpoint, replaying whatever the checkpoint does not cover. */
+    public static Leaderboard open(Path logFile, Path checkpointFile) throws IOException {
+        FileChannel log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Leaderboard leaderboard = new Leaderboard(checkpointFile, log);
+            long position = leaderboard.loadCheckpoint(log.size());
+            long end = leaderboard.replay(position);
+            if (position > 0 && end < log.size()) {
+                // Only a full replay may decide that the log ends early
+                System.err.println(checkpointFile + ": index ignoré, relecture complète du journal"
+                    + " (relecture interrompue)");
+                leaderboard.reset();
+                end = leaderboard.replay(0);
+            }
+            if (end < log.size()) {
+                System.err.println(logFile + ": fin du journal illisible ignorée (" + (log.size() - end) + " octets)");
+                log.truncate(end);
+            }
+            log.position(end);
+            leaderboard.syncer.scheduleWithFixedDelay(leaderboard::sync,
+                SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            return leaderboard;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /** Appends one finished game; it reaches the disk with the next background sync. */
+    public synchronized void record(List<Player> players) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeLong(System.currentTimeMillis());
+        payload.writeByte(players.size());
+        for (Player player : players) {
+            payload.writeUTF(player.getName());
+            payload.writeInt(player.getScore());
+            payload.writeInt(player.getCorrectAnswers());
+        }
+        if (bytes.size() > MAX_RECORD) {
+            throw new IOException("Partie trop longue pour le journal des scores");
+        }
+
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ByteBuffer record = ByteBuffer.allocate(8 + data.length);
+        record.putInt(data.length).putInt((int) crc.getValue()).put(data).flip();
+        while (record.hasRemaining()) {
+            log.write(record);
+        }
+        lastRecord = record.getLong(0);
+        dirty = true;
+
+        for (Player player : players) {
+            apply(player.getName(), player.getScore(), player.getCorrectAnswers());
+        }
+        recordedGames++;
+        if (++sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            sinceCheckpoint = 0;
+            long position = log.position();
+            long games = recordedGames;
+            long last = lastRecord;
+            List<Entry> snapshot = snapshot();
+            syncer.execute(() -> {
+                sync();
+                writeCheckpoint(position, games, last, snapshot);
+            });
+        }
+    }
+
+    /** Best players first, at most {@link #TOP_SIZE}; the list is kept ready, not sorted on demand. */
+    public synchronized List<Entry> getTop() {
+        return topView;
+    }
+
+    public synchronized Entry getBest(String name) {
+        return entries.get(name);
+    }
+
+    public synchronized long getRecordedGames() {
+        return recordedGames;
+    }
+
+    /** Syncs the log and checkpoints the index so the next open has nothing to replay. */
+    @Override
+    public synchronized void close() throws IOException {
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!log.isOpen()) {
+            return;
+        }
+        log.force(false);
+        writeCheckpoint(log.position(), recordedGames, lastRecord, snapshot());
+        log.close();
+    }
+
+    private void sync() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            log.force(false);
+        } catch (IOException e) {
+            dirty = true;
+            System.err.println("Journal des scores: écriture disque impossible - " + e.getMessage());
+        }
+    }
+
+    private void apply(String name, int score, int correctAnswers) {
+        Entry entry = entries.computeIfAbsent(name, Entry::new);
+        entry.games++;
+        if (score > entry.bestScore) {
+            entry.bestScore = score;
+            entry.bestCorrectAnswers = correctAnswers;
+            offerTop(entry);
+        }
+    }
+
+    // Moves an entry whose best just rose to its place; ties keep whoever got there first
+    private void offerTop(Entry entry) {
+        int pos = 0;
+        while (pos < topCount && top[pos] != entry) {
+            pos++;
+        }
+        if (pos == topCount) {
+            if (topCount < TOP_SIZE) {
+                topCount++;
+            } else if (entry.bestScore > top[TOP_SIZE - 1].bestScore) {
+                pos = TOP_SIZE - 1;
+            } else {
+                return;
+            }
+            top[pos] = entry;
+        }
+        while (pos > 0 && top[pos - 1].bestScore < entry.bestScore) {
+            top[pos] = top[pos - 1];
+            top[--pos] = entry;
+        }
+        topView = List.of(Arrays.copyOf(top, topCount));
+    }
+
+    // Top players first, so loading the checkpoint rebuilds the same order for ties
+    private List<Entry> snapshot() {
+        List<Entry> snapshot = new ArrayList<>(entries.size());
+        Set<Entry> inTop = new HashSet<>(topView);
+        snapshot.addAll(topView);
+        for (Entry entry : entries.values()) {
+            if (!inTop.contains(entry)) {
+                snapshot.add(entry);
+            }
+        }
+        for (int i = 0; i < snapshot.size(); i++) {
+            Entry entry = snapshot.get(i);
+            Entry copy = new Entry(entry.name);
+            copy.bestScore = entry.bestScore;
+            copy.bestCorrectAnswers = entry.bestCorrectAnswers;
+            copy.games = entry.games;
+            snapshot.set(i, copy);
+        }
+        return snapshot;
+    }
+
+    private void writeCheckpoint(long position, long games, long last, List<Entry> snapshot) {
+        try {
+            Path dir = checkpoint.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, "scores", ".tmp");
+            try {
+                try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(position);
+                    out.writeLong(games);
+                    out.writeLong(readHeader(0));
+                    out.writeLong(last);
+                    out.writeInt(snapshot.size());
+                    for (Entry entry : snapshot) {
+                        out.writeUTF(entry.name);
+                        out.writeInt(entry.bestScore);
+                        out.writeInt(entry.bestCorrectAnswers);
+                        out.writeInt(entry.games);
+                    }
+                    out.flush();
+                    file.getFD().sync();
+                }
+                Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println(checkpoint + ": sauvegarde de l'index impossible - " + e.getMessage());
+        }
+    }
+
+    // Returns the log position the checkpoint covers, or 0 when it is missing or does not match the log
+    private long loadCheckpoint(long logSize) {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("format inconnu");
+            }
+            long position = in.readLong();
+            long games = in.readLong();
+            if (position > logSize) {
+                throw new IOException("plus récent que le journal");
+            }
+            long first = in.readLong();
+            long last = in.readLong();
+            // The record ending at the position is the last one the checkpoint covers
+            long lastStart = position - 8 - (last >>> 32);
+            if (first != readHeader(0) || position > 0 && (lastStart < 0 || last != readHeader(lastStart))) {
+                throw new IOException("écrit pour un autre journal");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry(in.readUTF());
+                entry.bestScore = in.readInt();
+                entry.bestCorrectAnswers = in.readInt();
+                entry.games = in.readInt();
+                entries.put(entry.name, entry);
+                offerTop(entry);
+            }
+            recordedGames = games;
+            lastRecord = last;
+            return position;
+        } catch (IOException e) {
+            System.err.println(checkpoint + ": index ignoré, relecture complète du journal (" + e.getMessage() + ")");
+            reset();
+            return 0;
+        }
+    }
+
+    private void reset() {
+        entries.clear();
+        Arrays.fill(top, null);
+        topCount = 0;
+        topView = List.of();
+        recordedGames = 0;
+        lastRecord = 0;
+    }
+
+    // Length and CRC of the record at {@code position}, 0 past the end of the log
+    private long readHeader(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (header.hasRemaining()) {
+            if (log.read(header, position + header.position()) < 0) {
+                return 0;
+            }
+        }
+        return header.getLong(0);
+    }
+
+    // Replays complete records from {@code position}; returns where the last valid one ends
+    private long replay(long position) throws IOException {
+        log.position(position);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log), 1 << 16));
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[MAX_RECORD];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD) {
+                    return position;
+                }
+                in.readFully(payload, 0, length);
+            } catch (EOFException e) {
+                return position;
+            }
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                return position;
+            }
+
+            lastRecord = (long) length << 32 | checksum & 0xFFFFFFFFL;
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+            record.readLong();
+            int players = record.readUnsignedByte();
+            for (int i = 0; i < players; i++) {
+                apply(record.readUTF(), record.readInt(), record.readInt());
+            }
+            recordedGames++;
+            position += 8 + length;
+        }
+    }
+}
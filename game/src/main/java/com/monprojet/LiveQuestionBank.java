@@ -0,0 +1,32 @@
+package com.monprojet;
+
+import java.util.*;
+
+/**
+ * Question list that grows while the game runs. Indices are never shifted or
+ * reused: edited and new questions are appended after the loaded bank, and a
+ * question that leaves questions.json stays readable at its index for any
+ * player who already holds it. Confined to the EDT like the engine.
+ */
+class LiveQuestionBank extends AbstractList<Question> implements RandomAccess {
+    private final List<Question> base;
+    private final List<Question> added = new ArrayList<>();
+
+    public LiveQuestionBank(List<Question> base) {
+        this.base = base;
+    }
+
+    public void append(List<Question> questions) {
+        added.addAll(questions);
+    }
+
+    @Override
+    public int size() {
+        return base.size() + added.size();
+    }
+
+    @Override
+    public Question get(int i) {
+        return i < base.size() ? base.get(i) : added.get(i - base.size());
+    }
+}
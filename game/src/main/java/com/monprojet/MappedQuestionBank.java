@@ -0,0 +1,216 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Read-only question bank backed by a memory-mapped binary file. Questions are
+ * decoded only when {@link #get(int)} asks for them, so opening a bank costs the
+ * same whether it holds a thousand questions or fifty million.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * int  magic "QBK1"
+ * int  question count
+ * int  category count
+ * int  longest record, in bytes
+ * long index position
+ * long data position
+ * category table: (int length, UTF-8 bytes) per category
+ * index: one long per question, record offset relative to the data position
+ * data: per record byte correct answer, byte option count, short category,
+ *       then question and options as (int length, UTF-8 bytes)
+ * </pre>
+ */
+class MappedQuestionBank extends AbstractList<Question> implements RandomAccess {
+    private static final int MAGIC = 0x51424B31;
+    private static final int HEADER_SIZE = 32;
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final int size;
+    private final String[] categories;
+    private final ByteBuffer index;
+    private final ByteBuffer[] segments;
+
+    // Index and question travel together so concurrent readers never see a mismatched pair
+    private volatile Decoded cached = new Decoded(-1, null);
+
+    private static final class Decoded {
+        final int index;
+        final Question question;
+
+        Decoded(int index, Question question) {
+            this.index = index;
+            this.question = question;
+        }
+    }
+
+    private MappedQuestionBank(int size, String[] categories, ByteBuffer index, ByteBuffer[] segments) {
+        this.size = size;
+        this.categories = categories;
+        this.index = index;
+        this.segments = segments;
+    }
+
+    public static MappedQuestionBank open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " n'est pas une banque de questions");
+            }
+            int size = header.getInt();
+            int categoryCount = header.getInt();
+            int maxRecord = header.getInt();
+            long indexPosition = header.getLong();
+            long dataPosition = header.getLong();
+
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexPosition - HEADER_SIZE);
+            String[] categories = new String[categoryCount];
+            for (int i = 0; i < categoryCount; i++) {
+                byte[] bytes = new byte[table.getInt()];
+                table.get(bytes);
+                categories[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition, (long) size * Long.BYTES);
+
+            // Segments overlap by the longest record so no record straddles two mappings
+            long dataSize = channel.size() - dataPosition;
+            int segmentCount = (int) Math.max(1, (dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(SEGMENT_SIZE + maxRecord, dataSize - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataPosition + start, Math.max(0, length));
+            }
+            return new MappedQuestionBank(size, categories, index, segments);
+        }
+    }
+
+    /**
+     * Writes every question produced by {@code source} (until it returns null)
+     * to {@code target}. The file is built beside the target and moved into
+     * place, so a failed compile never leaves a truncated bank behind.
+     */
+    public static void compile(Supplier<Question> source, Path target) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Path dataFile = Files.createTempFile(dir, "questions", ".data");
+        Path indexFile = Files.createTempFile(dir, "questions", ".index");
+        Path bankFile = Files.createTempFile(dir, "questions", ".tmp");
+        try {
+            Map<String, Integer> categoryIds = new LinkedHashMap<>();
+            int count = 0;
+            int maxRecord = 0;
+            long position = 0;
+            try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)));
+                 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+                Question question;
+                while ((question = source.get()) != null) {
+                    Integer category = categoryIds.computeIfAbsent(question.getCategory(), c -> categoryIds.size());
+                    if (category > 0xFFFF || question.getOptions().size() > Byte.MAX_VALUE) {
+                        throw new IOException("Question #" + (count + 1) + " dépasse les limites du format");
+                    }
+                    index.writeLong(position);
+                    int length = 4;
+                    data.writeByte(question.getCorrectAnswer());
+                    data.writeByte(question.getOptions().size());
+                    data.writeShort(category);
+                    length += writeString(data, question.getQuestion());
+                    for (String option : question.getOptions()) {
+                        length += writeString(data, option);
+                    }
+                    position += length;
+                    maxRecord = Math.max(maxRecord, length);
+                    count++;
+                }
+            }
+
+            ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+            try (DataOutputStream table = new DataOutputStream(tableBytes)) {
+                for (String category : categoryIds.keySet()) {
+                    writeString(table, category);
+                }
+            }
+            long indexPosition = HEADER_SIZE + tableBytes.size();
+            long dataPosition = indexPosition + (long) count * Long.BYTES;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(count).putInt(categoryIds.size()).putInt(maxRecord)
+                .putLong(indexPosition).putLong(dataPosition).flip();
+
+            try (FileChannel out = FileChannel.open(bankFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(header);
+                out.write(ByteBuffer.wrap(tableBytes.toByteArray()));
+                append(out, indexFile);
+                append(out, dataFile);
+                out.force(true);
+            }
+            Files.move(bankFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(indexFile);
+            Files.deleteIfExists(bankFile);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Decodes question {@code i}; the last decoded question is kept for repeated repaints. */
+    @Override
+    public Question get(int i) {
+        Objects.checkIndex(i, size);
+        Decoded last = cached;
+        if (i == last.index) {
+            return last.question;
+        }
+        long offset = index.getLong(i * Long.BYTES);
+        ByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+        int pos = (int) (offset % SEGMENT_SIZE);
+
+        int correctAnswer = segment.get(pos);
+        int optionCount = segment.get(pos + 1);
+        String category = categories[segment.getShort(pos + 2) & 0xFFFF];
+        pos += 4;
+        String text = readString(segment, pos);
+        pos += 4 + segment.getInt(pos);
+        List<String> options = new ArrayList<>(optionCount);
+        for (int j = 0; j < optionCount; j++) {
+            options.add(readString(segment, pos));
+            pos += 4 + segment.getInt(pos);
+        }
+
+        Question question = new Question(text, options, correctAnswer, category);
+        cached = new Decoded(i, question);
+        return question;
+    }
+
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static String readString(ByteBuffer segment, int pos) {
+        byte[] bytes = new byte[segment.getInt(pos)];
+        segment.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void append(FileChannel out, Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            for (long done = 0; done < size; ) {
+                done += in.transferTo(done, size - done, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.monprojet;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import javax.swing.RepaintManager;
+import jdk.jfr.*;
+
+/**
+ * Built-in instrumentation of the game's hot paths, off unless
+ * -Dquiz.metrics=true. Every call site tests {@link #ENABLED}, a constant
+ * the JIT folds away, so switched off it costs nothing. Switched on, it
+ * records into {@link LatencyHistogram}s and emits JFR events (category
+ * "Quiz"), so a recording started with -XX:StartFlightRecording shows them
+ * next to the GC and allocation events:
+ * <ul>
+ * <li>paint time per screen, timed around each Swing paint pass;</li>
+ * <li>latency from an answer key press to the feedback being painted;</li>
+ * <li>question bank load time;</li>
+ * <li>bytes allocated on the event thread per game.</li>
+ * </ul>
+ * A summary, with GC counts and heap use, is appended to a local file
+ * (-Dquiz.metrics.file, metrics.log by default) every
+ * -Dquiz.metrics.period seconds (10) and shown by the in-game debug overlay.
+ */
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("quiz.metrics");
+    private static final long DUMP_PERIOD_SECONDS = Long.getLong("quiz.metrics.period", 10);
+
+    @Name("com.monprojet.Paint")
+    @Label("Dessin d'un écran")
+    @Category("Quiz")
+    static final class PaintEvent extends Event {
+        @Label("Écran")
+        String screen;
+    }
+
+    @Name("com.monprojet.AnswerFeedback")
+    @Label("Touche jusqu'au retour affiché")
+    @Category("Quiz")
+    static final class FeedbackEvent extends Event {
+    }
+
+    @Name("com.monprojet.QuestionLoad")
+    @Label("Chargement des questions")
+    @Category("Quiz")
+    static final class QuestionLoadEvent extends Event {
+        @Label("Questions")
+        int questions;
+        // Not part of the event: JFR skips transient fields
+        transient long startNanos;
+    }
+
+    @Name("com.monprojet.GameAllocation")
+    @Label("Allocation d'une partie")
+    @Category("Quiz")
+    static final class GameAllocationEvent extends Event {
+        @Label("Joueurs")
+        int players;
+        @Label("Octets alloués")
+        @DataAmount
+        long bytes;
+    }
+
+    private static final Map<String, LatencyHistogram> PAINT = new ConcurrentSkipListMap<>();
+    private static final LatencyHistogram FEEDBACK = new LatencyHistogram();
+    private static final LatencyHistogram QUESTION_LOAD = new LatencyHistogram();
+    private static final LatencyHistogram GAME_ALLOCATION = new LatencyHistogram();
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Event thread only: the answer awaiting its feedback, and the game in progress
+    private static FeedbackEvent pendingFeedback;
+    private static long pendingFeedbackNanos;
+    private static GameAllocationEvent currentGame;
+    private static long gameStartBytes;
+
+    private Metrics() {
+    }
+
+    /** Times every paint pass from now on, charged to whichever screen {@code screen} names. */
+    static void install(Supplier<String> screen) {
+        RepaintManager.setCurrentManager(new RepaintManager() {
+            @Override
+            public void paintDirtyRegions() {
+                PaintEvent event = new PaintEvent();
+                String name = screen.get();
+                event.screen = name == null ? "-" : name;
+                event.begin();
+                long start = System.nanoTime();
+                super.paintDirtyRegions();
+                PAINT.computeIfAbsent(event.screen, s -> new LatencyHistogram()).record(System.nanoTime() - start);
+                event.commit();
+            }
+        });
+        Path file = Paths.get(System.getProperty("quiz.metrics.file", "metrics.log"));
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "quiz-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(file), DUMP_PERIOD_SECONDS, DUMP_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static void answerKeyPressed() {
+        pendingFeedback = new FeedbackEvent();
+        pendingFeedback.begin();
+        pendingFeedbackNanos = System.nanoTime();
+    }
+
+    static void feedbackPainted() {
+        if (pendingFeedback != null) {
+            FEEDBACK.record(System.nanoTime() - pendingFeedbackNanos);
+            pendingFeedback.commit();
+            pendingFeedback = null;
+        }
+    }
+
+    static QuestionLoadEvent questionLoadStarted() {
+        QuestionLoadEvent event = new QuestionLoadEvent();
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    static void questionLoadFinished(QuestionLoadEvent event, int questions) {
+        QUESTION_LOAD.record(System.nanoTime() - event.startNanos);
+        event.questions = questions;
+        event.commit();
+    }
+
+    static void gameStarted() {
+        currentGame = new GameAllocationEvent();
+        currentGame.begin();
+        gameStartBytes = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    static void gameFinished(int players) {
+        if (currentGame != null) {
+            currentGame.bytes = THREADS.getCurrentThreadAllocatedBytes() - gameStartBytes;
+            currentGame.players = players;
+            GAME_ALLOCATION.record(currentGame.bytes);
+            currentGame.commit();
+            currentGame = null;
+        }
+    }
+
+    /** One line per measure, for the debug overlay and the dump file. */
+    static List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> paint : PAINT.entrySet()) {
+            lines.add("Dessin " + paint.getKey() + ": " + millis(paint.getValue()));
+        }
+        lines.add("Touche -> retour: " + millis(FEEDBACK));
+        lines.add("Chargement des questions: " + millis(QUESTION_LOAD));
+        LatencyHistogram allocation = GAME_ALLOCATION;
+        lines.add(String.format("Allocation par partie: %d parties, moyenne %.1f Mo, max %.1f Mo",
+            allocation.getCount(), allocation.getMean() / 1e6, allocation.getMax() / 1e6));
+        StringBuilder gc = new StringBuilder("GC:");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc.append(' ').append(collector.getName()).append(' ').append(collector.getCollectionCount())
+                .append(" (").append(collector.getCollectionTime()).append(" ms)");
+        }
+        lines.add(gc.toString());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        lines.add(String.format("Tas: %.0f / %.0f Mo", heap.getUsed() / 1e6, heap.getCommitted() / 1e6));
+        return lines;
+    }
+
+    private static String millis(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return "-";
+        }
+        return String.format("%d, p50 %.2f ms, p99 %.2f ms, max %.2f ms", histogram.getCount(),
+            histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    private static void dump(Path file) {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write("# " + LocalDateTime.now() + System.lineSeparator());
+            for (String line : summary()) {
+                out.write(line + System.lineSeparator());
+            }
+        } catch (IOException e) {
+            System.err.println(file + ": métriques non écrites - " + e.getMessage());
+        }
+    }
+}
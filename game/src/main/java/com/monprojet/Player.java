@@ -0,0 +1,49 @@
+package com.monprojet;
+
+import java.util.Arrays;
+
+class Player {
+    private String name;
+    private int score;
+    private int correctAnswers;
+    private int currentQuestionIndex;
+    // Only the first questionCount entries are assigned; adaptive games fill them turn by turn
+    private int[] questionIndices;
+    private int questionCount;
+    private long answerTimeNanos;
+    private double skill;
+    
+    public Player(String name) {
+        this.name = name;
+        this.score = 0;
+        this.correctAnswers = 0;
+        this.currentQuestionIndex = 0;
+        this.questionIndices = new int[0];
+    }
+    
+    // Getters and setters
+    public String getName() { return name; }
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+    public int getCorrectAnswers() { return correctAnswers; }
+    public void setCorrectAnswers(int correctAnswers) { this.correctAnswers = correctAnswers; }
+    public int getCurrentQuestionIndex() { return currentQuestionIndex; }
+    public void setCurrentQuestionIndex(int currentQuestionIndex) { this.currentQuestionIndex = currentQuestionIndex; }
+    public int getQuestionCount() { return questionCount; }
+    public int[] getQuestionIndices() { return questionIndices; }
+    public int getQuestionIndex(int i) { return questionIndices[i]; }
+    public void setQuestionIndices(int[] questionIndices, int questionCount) {
+        this.questionIndices = questionIndices;
+        this.questionCount = questionCount;
+    }
+    public void addQuestionIndex(int index) {
+        if (questionCount == questionIndices.length) {
+            questionIndices = Arrays.copyOf(questionIndices, Math.max(4, questionCount * 2));
+        }
+        questionIndices[questionCount++] = index;
+    }
+    public long getAnswerTimeNanos() { return answerTimeNanos; }
+    public void setAnswerTimeNanos(long answerTimeNanos) { this.answerTimeNanos = answerTimeNanos; }
+    public double getSkill() { return skill; }
+    public void setSkill(double skill) { this.skill = skill; }
+}
@@ -0,0 +1,27 @@
+package com.monprojet;
+
+import java.util.List;
+
+class Question {
+    private String question;
+    private List<String> options;
+    private int correctAnswer;
+    private String category;
+    
+    public Question(String question, List<String> options, int correctAnswer, String category) {
+        this.question = question;
+        this.options = options;
+        this.correctAnswer = correctAnswer;
+        this.category = category;
+    }
+    
+    public Question(String question, List<String> options, int correctAnswer) {
+        this(question, options, correctAnswer, "Général");
+    }
+    
+    // Getters and setters
+    public String getQuestion() { return question; }
+    public List<String> getOptions() { return options; }
+    public int getCorrectAnswer() { return correctAnswer; }
+    public String getCategory() { return category; }
+}
@@ -0,0 +1,224 @@
+package com.monprojet;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.imageio.ImageIO;
+
+/**
+ * Question cards, a question and its options as the game screen shows them,
+ * rasterized ahead of time on a background thread so that moving to the next
+ * question copies one image instead of laying out and drawing five lines of
+ * text. The game asks for the upcoming questions of every player while the
+ * current one is answered. Cards are kept in a least recently used cache
+ * bounded in bytes and, given a directory, also saved as PNG files named
+ * after a hash of the question's text and options, which a later run reads
+ * back instead of rendering.
+ *
+ * Cards are rendered for one {@link Geometry}; a new one, after the window
+ * was resized, empties the cache.
+ */
+class QuestionCards {
+    /** Draws a card's content in logical coordinates; called on the rendering thread with its own text cache. */
+    interface Painter {
+        void paint(Graphics2D g2d, TextCache textCache, Question question);
+    }
+
+    /** Pixel size of the cards and the transform from logical coordinates to their pixels. */
+    static final class Geometry {
+        final int width;
+        final int height;
+        final AffineTransform transform;
+
+        /** Cards covering {@code area} of {@code panel}, at the resolution of {@code device}. */
+        Geometry(ScreenPanel panel, Rectangle area, GraphicsConfiguration device) {
+            Rectangle bounds = panel.toPanel(area);
+            AffineTransform scale = device.getDefaultTransform();
+            width = (int) Math.ceil(bounds.width * scale.getScaleX());
+            height = (int) Math.ceil(bounds.height * scale.getScaleY());
+            transform = AffineTransform.getScaleInstance(scale.getScaleX(), scale.getScaleY());
+            transform.translate(-bounds.x, -bounds.y);
+            transform.concatenate(panel.getLogicalTransform());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Geometry && ((Geometry) o).width == width && ((Geometry) o).height == height
+                && ((Geometry) o).transform.equals(transform);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * width + height) + transform.hashCode();
+        }
+    }
+
+    private final Painter painter;
+    private final Color background;
+    private final long maxBytes;
+    private final Path directory;
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "question-cards");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    // Rendering thread only
+    private final TextCache textCache = new TextCache();
+    // Guarded by this
+    private final LinkedHashMap<String, BufferedImage> cards = new LinkedHashMap<>(64, 0.75f, true);
+    private final Set<String> pending = new HashSet<>();
+    private long bytes;
+    private Geometry geometry;
+
+    /** {@code directory} may be null to keep cards in memory only. */
+    QuestionCards(Painter painter, Color background, long maxBytes, Path directory) {
+        this.painter = painter;
+        this.background = background;
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    /** Hash of the question's text and options, naming its card in memory and on disk. */
+    static String key(Question question) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(question.getQuestion().getBytes(StandardCharsets.UTF_8));
+            for (String option : question.getOptions()) {
+                digest.update((byte) 0);
+                digest.update(option.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Renders cards for {@code geometry} from now on, dropping those of another one. */
+    public synchronized void setGeometry(Geometry geometry) {
+        if (!geometry.equals(this.geometry)) {
+            this.geometry = geometry;
+            cards.clear();
+            pending.clear();
+            bytes = 0;
+        }
+    }
+
+    public synchronized Geometry getGeometry() {
+        return geometry;
+    }
+
+    /** The card for {@code key}, or null if it is not ready. */
+    public synchronized BufferedImage get(String key) {
+        return cards.get(key);
+    }
+
+    /** Renders the card of {@code question} in the background, unless it is cached or already queued. */
+    public void prefetch(Question question) {
+        String key = key(question);
+        Geometry target;
+        synchronized (this) {
+            if (geometry == null || cards.containsKey(key) || !pending.add(key)) {
+                return;
+            }
+            target = geometry;
+        }
+        renderer.execute(() -> {
+            BufferedImage card = null;
+            try {
+                card = load(key, question, target);
+            } finally {
+                store(key, target, card);
+            }
+        });
+    }
+
+    private synchronized void store(String key, Geometry target, BufferedImage card) {
+        if (!target.equals(geometry)) {
+            return;
+        }
+        pending.remove(key);
+        if (card == null) {
+            return;
+        }
+        cards.put(key, card);
+        bytes += (long) card.getWidth() * card.getHeight() * 4;
+        Iterator<BufferedImage> eldest = cards.values().iterator();
+        while (bytes > maxBytes && cards.size() > 1) {
+            BufferedImage evicted = eldest.next();
+            eldest.remove();
+            bytes -= (long) evicted.getWidth() * evicted.getHeight() * 4;
+        }
+    }
+
+    private BufferedImage load(String key, Question question, Geometry target) {
+        Path file = directory == null ? null
+            : directory.resolve(key + "-" + target.width + "x" + target.height + ".png");
+        if (file != null && Files.exists(file)) {
+            try {
+                BufferedImage saved = ImageIO.read(file.toFile());
+                if (saved != null && saved.getWidth() == target.width && saved.getHeight() == target.height) {
+                    return toIntRgb(saved);
+                }
+            } catch (IOException e) {
+                System.err.println(file + ": carte illisible, redessinée - " + e.getMessage());
+            }
+        }
+        BufferedImage card = render(question, target);
+        if (file != null) {
+            save(card, file);
+        }
+        return card;
+    }
+
+    BufferedImage render(Question question, Geometry target) {
+        BufferedImage card = new BufferedImage(target.width, target.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = card.createGraphics();
+        try {
+            g2d.setColor(background);
+            g2d.fillRect(0, 0, target.width, target.height);
+            g2d.transform(target.transform);
+            painter.paint(g2d, textCache, question);
+        } finally {
+            g2d.dispose();
+        }
+        return card;
+    }
+
+    // Written beside the target and moved into place, so a reader never sees half a file
+    private static void save(BufferedImage card, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "carte-", ".tmp");
+            try {
+                ImageIO.write(card, "png", tmp.toFile());
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            System.err.println(file + ": carte non enregistrée - " + e.getMessage());
+        }
+    }
+
+    // PNGs decode to a byte layout; copied once so drawing the card needs no conversion
+    private static BufferedImage toIntRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = converted.createGraphics();
+        try {
+            g2d.drawImage(image, 0, 0, null);
+        } finally {
+            g2d.dispose();
+        }
+        return converted;
+    }
+}
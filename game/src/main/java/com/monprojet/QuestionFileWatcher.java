@@ -0,0 +1,494 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.json.*;
+
+/**
+ * Follows edits to questions.json while the game runs. Each save is read
+ * whole into a direct buffer and compared with the previous version, kept in
+ * a second one: vectorized byte mismatches from both ends find the changed
+ * region, and only the records inside it are scanned, matched and parsed. The outcome is a
+ * {@link Change} for {@link LiveQuestionBank} and {@link QuizEngine}: new
+ * questions take fresh indices and the indices of removed ones are retired,
+ * so nothing a player already holds moves.
+ *
+ * Only the parse is incremental. An editor rewrites the whole file and any
+ * byte of it may have changed, so every save is still read in full; for a
+ * file of a million questions that read is about half of a reload
+ * (HotReloadBenchmark reports it on its own). Files of {@link #MAX_FILE_SIZE} bytes or more are
+ * refused rather than followed.
+ */
+class QuestionFileWatcher {
+    private static final long SETTLE_MILLIS = 200;
+    private static final int SUFFIX_BLOCK = 1 << 16;
+    private static final int READ_ATTEMPTS = 3;
+    // Largest direct buffer a file fits in
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    /** Questions to append, in order, and indices that left the file. */
+    static final class Change {
+        final List<Question> added;
+        final int[] retired;
+
+        Change(List<Question> added, int[] retired) {
+            this.added = added;
+            this.retired = retired;
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && retired.length == 0;
+        }
+    }
+
+    private final Path json;
+    // The two buffers swap after each reload, so steady editing allocates nothing
+    private ByteBuffer current;
+    private ByteBuffer spare;
+    // Record spans in the current version, in file order, and the bank index of each (-1 when malformed)
+    private int[] starts;
+    private int[] ends;
+    private int[] slots;
+    private int count;
+    private int nextSlot;
+
+    /**
+     * Indexes the current questions.json against {@code bank}, which must have
+     * been loaded from it after {@code firstSlot} default questions.
+     */
+    public QuestionFileWatcher(Path json, List<Question> bank, int firstSlot) throws IOException {
+        this.json = json;
+        this.nextSlot = bank.size();
+        current = Files.exists(json) ? read(null) : ByteBuffer.allocateDirect(0);
+        Records records = new Records(16);
+        int from = current.limit() > 0 ? openingBracket(current) : 0;
+        if (from < 0 || (current.limit() > 0 && !scan(current, from, current.limit(), false, true, records))) {
+            throw new IOException("questions.json: structure illisible");
+        }
+        starts = records.starts;
+        ends = records.ends;
+        count = records.size;
+        slots = new int[count];
+        if (count == bank.size() - firstSlot) {
+            for (int r = 0; r < count; r++) {
+                slots[r] = firstSlot + r;
+            }
+        } else {
+            // Some entries were skipped when the bank was built; parse to learn which
+            Arrays.fill(slots, -1);
+            int[] all = new int[count];
+            Arrays.setAll(all, r -> r);
+            List<Question> valid = new ArrayList<>();
+            int[] parsed = parse(current, records, all, valid);
+            if (valid.size() == bank.size() - firstSlot) {
+                for (int k = 0; k < parsed.length; k++) {
+                    slots[parsed[k]] = firstSlot + k;
+                }
+            } else {
+                System.err.println("questions.json: ne correspond pas à la banque chargée, seules les modifications seront suivies");
+            }
+        }
+    }
+
+    /** Watches on a daemon thread, handing every non-empty change to {@code onChange} from that thread. */
+    public void start(Consumer<Change> onChange) {
+        Thread thread = new Thread(() -> watch(onChange), "questions-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch(Consumer<Change> onChange) {
+        Path dir = json.toAbsolutePath().getParent();
+        try (WatchService service = dir.getFileSystem().newWatchService()) {
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = service.take();
+                boolean touched = false;
+                // Editors save in several writes, and some by renaming a new file; wait until it settles
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        touched |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || json.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    key = touched ? service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS) : null;
+                }
+                if (!touched || !Files.exists(json)) {
+                    continue;
+                }
+                try {
+                    Change change = reload();
+                    if (!change.isEmpty()) {
+                        onChange.accept(change);
+                    }
+                } catch (IOException | JSONException e) {
+                    System.err.println("questions.json: rechargement impossible - " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("questions.json: surveillance impossible - " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Diffs questions.json against the previous version and makes it the new
+     * reference. On a syntax error nothing changes and the next save is
+     * compared with the same version.
+     */
+    synchronized Change reload() throws IOException {
+        ByteBuffer before = current;
+        ByteBuffer after = read(spare);
+        spare = after;
+        int prefix = before.mismatch(after);
+        if (prefix < 0) {
+            return new Change(List.of(), new int[0]);
+        }
+
+        Records records = new Records(count + 16);
+        int suffix = commonSuffix(before, after, Math.min(before.limit(), after.limit()) - prefix);
+        int a = firstAbove(ends, count, prefix);
+        int b = firstAtLeast(starts, count, before.limit() - suffix);
+        if (!scanBetween(after, a, b, after.limit() - before.limit(), records)) {
+            // The edit changed how the untouched bytes around it read, e.g. an unbalanced quote
+            a = 0;
+            b = count;
+            records = new Records(count + 16);
+            if (!scanBetween(after, a, b, 0, records)) {
+                throw new JSONException("structure illisible après la modification");
+            }
+        }
+        List<Question> added = new ArrayList<>();
+        List<Integer> retired = new ArrayList<>();
+        int[] newSlots = match(before, after, a, b, records, added, retired);
+
+        current = after;
+        spare = before;
+        starts = records.starts;
+        ends = records.ends;
+        slots = newSlots;
+        count = records.size;
+        nextSlot += added.size();
+        return new Change(added, retired.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Reads questions.json whole, reusing {@code into} when it is big enough; a save landing mid-read is read again
+    private ByteBuffer read(ByteBuffer into) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            FileTime modified = Files.getLastModifiedTime(json);
+            try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size >= MAX_FILE_SIZE) {
+                    throw new IOException("questions.json dépasse 2 Go, rechargement à chaud impossible");
+                }
+                if (into == null || into.capacity() < size) {
+                    // Room to grow, short of the largest buffer
+                    into = ByteBuffer.allocateDirect((int) Math.min(MAX_FILE_SIZE - 1, size + size / 4));
+                }
+                into.clear().limit((int) size);
+                while (into.hasRemaining() && channel.read(into) >= 0) {
+                    // keep reading
+                }
+                into.flip();
+                // A file that grew or shrank while read is not this version; read it again
+                if (into.limit() != size || channel.size() != size) {
+                    if (attempt == READ_ATTEMPTS) {
+                        throw new IOException("questions.json modifié pendant la lecture");
+                    }
+                    continue;
+                }
+            }
+            if (attempt == READ_ATTEMPTS || modified.equals(Files.getLastModifiedTime(json))) {
+                return into;
+            }
+        }
+    }
+
+    // Scans the new file between the old records a-1 and b, shifted by delta, and splices in the unchanged spans
+    private boolean scanBetween(ByteBuffer after, int a, int b, int delta, Records records) {
+        int from = a == 0 ? openingBracket(after) : ends[a - 1];
+        int limit = b < count ? starts[b] + delta : after.limit();
+        if (from < 0 || from > limit) {
+            return false;
+        }
+        records.addAll(starts, ends, 0, a, 0);
+        if (!scan(after, from, limit, a > 0, b == count, records)) {
+            return false;
+        }
+        records.addAll(starts, ends, b, count, delta);
+        return true;
+    }
+
+    // Gives every new record an index: unchanged spans keep theirs, moved records are found by content, the rest are parsed
+    private int[] match(ByteBuffer before, ByteBuffer after, int a, int b, Records records,
+            List<Question> added, List<Integer> retired) {
+        int middle = records.size - a - (count - b);
+        int[] newSlots = new int[records.size];
+        System.arraycopy(slots, 0, newSlots, 0, a);
+        System.arraycopy(slots, b, newSlots, a + middle, count - b);
+
+        Map<Long, Deque<Integer>> oldByHash = new HashMap<>();
+        for (int r = a; r < b; r++) {
+            oldByHash.computeIfAbsent(hash(before, starts[r], ends[r]), h -> new ArrayDeque<>()).add(r);
+        }
+        int[] unmatched = new int[middle];
+        int unmatchedCount = 0;
+        for (int r = a; r < a + middle; r++) {
+            Deque<Integer> candidates = oldByHash.get(hash(after, records.starts[r], records.ends[r]));
+            Integer same = null;
+            if (candidates != null) {
+                for (Integer old : candidates) {
+                    if (sameBytes(before, starts[old], ends[old], after, records.starts[r], records.ends[r])) {
+                        same = old;
+                        break;
+                    }
+                }
+            }
+            if (same != null) {
+                candidates.remove(same);
+                newSlots[r] = slots[same];
+            } else {
+                newSlots[r] = -1;
+                unmatched[unmatchedCount++] = r;
+            }
+        }
+        for (Deque<Integer> left : oldByHash.values()) {
+            for (int old : left) {
+                if (slots[old] >= 0) {
+                    retired.add(slots[old]);
+                }
+            }
+        }
+
+        int[] parsed = parse(after, records, Arrays.copyOf(unmatched, unmatchedCount), added);
+        for (int k = 0; k < parsed.length; k++) {
+            newSlots[parsed[k]] = nextSlot + k;
+        }
+        return newSlots;
+    }
+
+    // Parses the given records as one small array; returns the record of each question added, in order
+    private static int[] parse(ByteBuffer file, Records records, int[] which, List<Question> questions) {
+        if (which.length == 0) {
+            return which;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write('[');
+        for (int k = 0; k < which.length; k++) {
+            if (k > 0) {
+                bytes.write(',');
+            }
+            int r = which[k];
+            byte[] record = new byte[records.ends[r] - records.starts[r]];
+            file.get(records.starts[r], record);
+            bytes.write(record, 0, record.length);
+        }
+        bytes.write(']');
+
+        QuestionLoader loader = new QuestionLoader(
+            new StringReader(new String(bytes.toByteArray(), Charset.defaultCharset())),
+            (reason, record) -> System.err.println(
+                "questions.json: entrée #" + (which[record - 1] + 1) + " ignorée (" + reason + ")"));
+        int[] parsed = new int[which.length];
+        int n = 0;
+        Question question;
+        while ((question = loader.next()) != null) {
+            questions.add(question);
+            parsed[n++] = which[loader.getRecordCount() - 1];
+        }
+        return Arrays.copyOf(parsed, n);
+    }
+
+    private static final class Records {
+        int[] starts;
+        int[] ends;
+        int size;
+
+        Records(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+        }
+
+        void add(int start, int end) {
+            grow(size + 1);
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        // Appends spans [from, to) of another index, shifted by delta
+        void addAll(int[] otherStarts, int[] otherEnds, int from, int to, int delta) {
+            grow(size + to - from);
+            for (int r = from; r < to; r++, size++) {
+                starts[size] = otherStarts[r] + delta;
+                ends[size] = otherEnds[r] + delta;
+            }
+        }
+
+        private void grow(int needed) {
+            if (needed > starts.length) {
+                int capacity = Math.max(needed, starts.length * 2);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+        }
+    }
+
+    /**
+     * Collects the top-level array entries in [from, limit). Returns false
+     * unless the bytes there are whole entries and separators, ending on the
+     * array's closing bracket when {@code closing}, or just after a comma
+     * otherwise, since the next entry starts at {@code limit}.
+     */
+    private static boolean scan(ByteBuffer file, int from, int limit, boolean needComma, boolean closing, Records records) {
+        boolean any = needComma;
+        int pos = from;
+        while (true) {
+            while (pos < limit && isWhitespace(file.get(pos))) {
+                pos++;
+            }
+            if (pos == limit) {
+                return !closing && !needComma;
+            }
+            byte c = file.get(pos);
+            if (c == ']') {
+                return closing && (needComma || !any);
+            }
+            if (c == ',') {
+                if (!needComma) {
+                    return false;
+                }
+                needComma = false;
+                pos++;
+                continue;
+            }
+            if (needComma) {
+                return false;
+            }
+            int end = skipValue(file, pos, limit);
+            if (end <= pos) {
+                return false;
+            }
+            records.add(pos, end);
+            any = true;
+            needComma = true;
+            pos = end;
+        }
+    }
+
+    // End of the value starting at pos, or -1 if it does not finish before limit
+    private static int skipValue(ByteBuffer file, int pos, int limit) {
+        int depth = 0;
+        boolean inString = false;
+        for (; pos < limit; pos++) {
+            byte c = file.get(pos);
+            if (inString) {
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        return pos + 1;
+                    }
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    return pos;
+                }
+                if (--depth == 0) {
+                    return pos + 1;
+                }
+            } else if (depth == 0 && (c == ',' || isWhitespace(c))) {
+                return pos;
+            }
+        }
+        return depth == 0 && !inString ? pos : -1;
+    }
+
+    private static int openingBracket(ByteBuffer file) {
+        int pos = 0;
+        while (pos < file.limit() && isWhitespace(file.get(pos))) {
+            pos++;
+        }
+        return pos < file.limit() && file.get(pos) == '[' ? pos + 1 : -1;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    // Length of the common tail, compared a block at a time so the bulk of it runs vectorized
+    private static int commonSuffix(ByteBuffer before, ByteBuffer after, int max) {
+        int matched = 0;
+        while (matched < max) {
+            int length = Math.min(SUFFIX_BLOCK, max - matched);
+            ByteBuffer x = before.slice(before.limit() - matched - length, length);
+            ByteBuffer y = after.slice(after.limit() - matched - length, length);
+            if (x.mismatch(y) < 0) {
+                matched += length;
+                continue;
+            }
+            for (int k = length - 1; x.get(k) == y.get(k); k--) {
+                matched++;
+            }
+            return matched;
+        }
+        return matched;
+    }
+
+    // First record whose end lies past pos
+    private static int firstAbove(int[] ends, int count, int pos) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] > pos) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // First record starting at or after pos
+    private static int firstAtLeast(int[] starts, int count, int pos) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] >= pos) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static long hash(ByteBuffer file, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h = (h ^ (file.get(i) & 0xFF)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static boolean sameBytes(ByteBuffer x, int xStart, int xEnd, ByteBuffer y, int yStart, int yEnd) {
+        return xEnd - xStart == yEnd - yStart
+            && x.slice(xStart, xEnd - xStart).mismatch(y.slice(yStart, yEnd - yStart)) < 0;
+    }
+
+}
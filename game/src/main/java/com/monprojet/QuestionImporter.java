@@ -0,0 +1,738 @@
+package com.monprojet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.json.*;
+
+/**
+ * Offline merge of question banks into one clean questions.json, dropping
+ * exact and near duplicates. Usage: QuestionImporter sortie.json entrées...
+ * where each input is a JSON array, JSONL (one object per line) or CSV
+ * (question,options separated by '|',correct_answer[,category]). Tuning:
+ * -Dquiz.import.threads, -Dquiz.import.memory (heap budget in MB, default
+ * 256) and -Dquiz.import.similarity (default 0.8).
+ *
+ * Four stages, each spread over a ForkJoinPool:
+ * <ol>
+ * <li>parse: files are cut into chunks (JSONL and CSV at line boundaries,
+ *     JSON arrays whole); each chunk spills its questions and their
+ *     signatures (exact hash of the normalized text plus a one-permutation
+ *     MinHash over character shingles) to temporary files;</li>
+ * <li>bucket: LSH band keys, plus the exact hash as one more band, are
+ *     written to partition files sized so that one partition per thread
+ *     fits in the memory budget;</li>
+ * <li>dedup: each partition is sorted; entries sharing a key are compared
+ *     on their signatures and the later one is dropped when they match,
+ *     exact matches first so the counts do not depend on which partition
+ *     reaches a pair first;</li>
+ * <li>write: the surviving questions are written in input order.</li>
+ * </ol>
+ * Heap use depends on the budget and one bit per record, not on the number
+ * of records; signatures are read through memory-mapped files.
+ */
+public class QuestionImporter {
+    private static final int MIN_HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = MIN_HASHES / BANDS;
+    private static final int SHINGLE = 5;
+    private static final int SIGNATURE_BYTES = Long.BYTES + MIN_HASHES * Integer.BYTES;
+    private static final int SIGNATURES_PER_SEGMENT = Integer.MAX_VALUE / SIGNATURE_BYTES;
+    private static final long CHUNK_SIZE = 64L << 20;
+    private static final int MAX_GROUP_COMPARISONS = 16;
+    private static final int MAX_REPORTED = 100;
+    private static final int DENSIFY_STEP = 0x9E3779B9;
+
+    /** Counts from one import. */
+    static final class Report {
+        long read;
+        long malformed;
+        long exactDuplicates;
+        long nearDuplicates;
+        long written;
+    }
+
+    private enum Format { JSON, JSONL, CSV }
+
+    // A slice of one input file, parsed by one task
+    private static final class Chunk {
+        final Path file;
+        final Format format;
+        final long start;
+        final long end;
+        Path records;
+        Path signatures;
+        int count;
+        int firstId;
+
+        Chunk(Path file, Format format, long start, long end) {
+            this.file = file;
+            this.format = format;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private final int threads;
+    private final long memoryBytes;
+    private final double similarity;
+    private final AtomicLong malformed = new AtomicLong();
+    private final AtomicLong exactDuplicates = new AtomicLong();
+    private final AtomicLong nearDuplicates = new AtomicLong();
+
+    public QuestionImporter(int threads, long memoryBytes, double similarity) {
+        this.threads = threads;
+        this.memoryBytes = memoryBytes;
+        this.similarity = similarity;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: QuestionImporter sortie.json entrées...");
+            System.exit(1);
+        }
+        int threads = Integer.getInteger("quiz.import.threads", Runtime.getRuntime().availableProcessors());
+        long memory = Integer.getInteger("quiz.import.memory", 256) * (1L << 20);
+        double similarity = Double.parseDouble(System.getProperty("quiz.import.similarity", "0.8"));
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            inputs.add(Paths.get(args[i]));
+        }
+
+        Report report = new QuestionImporter(threads, memory, similarity).run(inputs, Paths.get(args[0]));
+        System.out.printf("%d entrées lues, %d invalides, %d doublons exacts, %d quasi-doublons (similarité >= %.2f)%n",
+            report.read, report.malformed, report.exactDuplicates, report.nearDuplicates, similarity);
+        System.out.printf("%d questions écrites dans %s%n", report.written, args[0]);
+    }
+
+    public Report run(List<Path> inputs, Path output) throws IOException {
+        Path work = Files.createTempDirectory(output.toAbsolutePath().getParent(), "import");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Chunk> chunks = split(inputs);
+            long start = System.nanoTime();
+            runAll(pool, chunks, chunk -> parse(chunk, work));
+            int total = 0;
+            for (Chunk chunk : chunks) {
+                chunk.firstId = total;
+                if (total + (long) chunk.count > Integer.MAX_VALUE) {
+                    throw new IOException("Plus de " + Integer.MAX_VALUE + " entrées");
+                }
+                total += chunk.count;
+            }
+            log("lecture", start);
+
+            start = System.nanoTime();
+            long pairBytes = (long) total * (BANDS + 1) * Long.BYTES;
+            int partitions = (int) Math.max(1, (pairBytes + memoryBytes / threads - 1) / (memoryBytes / threads));
+            FileChannel[] buckets = new FileChannel[partitions];
+            for (int p = 0; p < partitions; p++) {
+                buckets[p] = FileChannel.open(work.resolve("bucket" + p), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            try {
+                runAll(pool, chunks, chunk -> bucket(chunk, buckets));
+                log("partitions (" + partitions + ")", start);
+
+                start = System.nanoTime();
+                Signatures signatures = new Signatures(chunks);
+                AtomicLongArray dropped = new AtomicLongArray((total + 63) >>> 6);
+                runAll(pool, Arrays.asList(buckets), bucket -> dedup(bucket, signatures, dropped));
+                log("doublons", start);
+
+                start = System.nanoTime();
+                Report report = new Report();
+                report.read = total;
+                report.written = write(chunks, dropped, output);
+                report.malformed = malformed.get();
+                report.exactDuplicates = exactDuplicates.get();
+                report.nearDuplicates = nearDuplicates.get();
+                log("écriture", start);
+                return report;
+            } finally {
+                for (FileChannel bucket : buckets) {
+                    if (bucket != null) {
+                        bucket.close();
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            deleteAll(work);
+        }
+    }
+
+    private interface Task<T> {
+        void run(T item) throws IOException;
+    }
+
+    private static <T> void runAll(ForkJoinPool pool, List<T> items, Task<T> task) throws IOException {
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (T item : items) {
+            calls.add(() -> {
+                task.run(item);
+                return null;
+            });
+        }
+        for (Future<Void> result : pool.invokeAll(calls)) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private static void log(String stage, long start) {
+        System.out.printf("  %-20s %8d ms%n", stage, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Line formats split at any byte; each chunk then keeps the lines that start inside it
+    private static List<Chunk> split(List<Path> inputs) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Path input : inputs) {
+            String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+            Format format = name.endsWith(".jsonl") ? Format.JSONL : name.endsWith(".csv") ? Format.CSV : Format.JSON;
+            long size = Files.size(input);
+            if (format == Format.JSON) {
+                chunks.add(new Chunk(input, format, 0, size));
+                continue;
+            }
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                chunks.add(new Chunk(input, format, start, Math.min(size, start + CHUNK_SIZE)));
+            }
+        }
+        return chunks;
+    }
+
+    private void parse(Chunk chunk, Path work) throws IOException {
+        chunk.records = Files.createTempFile(work, "records", ".bin");
+        chunk.signatures = Files.createTempFile(work, "signatures", ".bin");
+        try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chunk.records), 1 << 16));
+             DataOutputStream signatures = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chunk.signatures), 1 << 16))) {
+            int[] minHashes = new int[MIN_HASHES];
+            QuestionSink sink = question -> {
+                writeQuestion(records, question);
+                signatures.writeLong(signature(question, minHashes));
+                for (int h : minHashes) {
+                    signatures.writeInt(h);
+                }
+                chunk.count++;
+            };
+            if (chunk.format == Format.JSON) {
+                parseArray(chunk, sink);
+            } else {
+                parseLines(chunk, sink);
+            }
+        }
+    }
+
+    private interface QuestionSink {
+        void accept(Question question) throws IOException;
+    }
+
+    private void parseArray(Chunk chunk, QuestionSink sink) throws IOException {
+        try (Reader reader = Files.newBufferedReader(chunk.file, StandardCharsets.UTF_8)) {
+            QuestionLoader loader = new QuestionLoader(reader, (reason, record) ->
+                reportMalformed(chunk.file + ": entrée #" + record + " ignorée (" + reason + ")"));
+            Question question;
+            while ((question = loader.next()) != null) {
+                sink.accept(question);
+            }
+        } catch (JSONException e) {
+            throw new IOException(chunk.file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Reads the lines whose first byte lies in [start, end); the line straddling start belongs to the previous chunk
+    private void parseLines(Chunk chunk, QuestionSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(chunk.file, StandardOpenOption.READ)) {
+            long pos = Math.max(0, chunk.start - 1);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(pos)), 1 << 16);
+            int c = 0;
+            if (chunk.start > 0) {
+                while ((c = in.read()) != -1) {
+                    pos++;
+                    if (c == '\n') {
+                        break;
+                    }
+                }
+            }
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            while (pos < chunk.end && c != -1) {
+                long lineStart = pos;
+                line.reset();
+                while ((c = in.read()) != -1) {
+                    pos++;
+                    if (c == '\n') {
+                        break;
+                    }
+                    line.write(c);
+                }
+                String text = line.toString(StandardCharsets.UTF_8).trim();
+                if (text.isEmpty() || (chunk.format == Format.CSV && lineStart == 0 && text.startsWith("question,"))) {
+                    continue;
+                }
+                String where = chunk.file + ": octet " + lineStart;
+                Question question = chunk.format == Format.JSONL ? parseJsonLine(text, where) : parseCsvLine(text, where);
+                if (question != null) {
+                    sink.accept(question);
+                }
+            }
+        }
+    }
+
+    private Question parseJsonLine(String text, String where) {
+        try {
+            return QuestionLoader.toQuestion(new JSONObject(text), 0,
+                (reason, record) -> reportMalformed(where + " ignoré (" + reason + ")"));
+        } catch (JSONException e) {
+            reportMalformed(where + " ignoré (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    // question,options separated by '|',correct_answer[,category]; fields may be double-quoted, without line breaks
+    private Question parseCsvLine(String text, String where) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (fields.size() < 3 || fields.size() > 4) {
+            reportMalformed(where + " ignoré (3 ou 4 colonnes attendues)");
+            return null;
+        }
+        List<String> options = Arrays.asList(fields.get(1).split("\\|", -1));
+        int correctAnswer;
+        try {
+            correctAnswer = Integer.parseInt(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            reportMalformed(where + " ignoré (correct_answer invalide)");
+            return null;
+        }
+        if (correctAnswer < 0 || correctAnswer >= options.size()) {
+            reportMalformed(where + " ignoré (correct_answer hors limites)");
+            return null;
+        }
+        return fields.size() == 4
+            ? new Question(fields.get(0), options, correctAnswer, fields.get(3))
+            : new Question(fields.get(0), options, correctAnswer);
+    }
+
+    private void reportMalformed(String message) {
+        if (malformed.incrementAndGet() <= MAX_REPORTED) {
+            System.err.println(message);
+        }
+    }
+
+    private void bucket(Chunk chunk, FileChannel[] buckets) throws IOException {
+        ByteBuffer[] pending = new ByteBuffer[buckets.length];
+        for (int p = 0; p < pending.length; p++) {
+            pending[p] = ByteBuffer.allocate(1 << 13);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(chunk.signatures), 1 << 16))) {
+            int[] minHashes = new int[MIN_HASHES];
+            for (int r = 0; r < chunk.count; r++) {
+                long exact = in.readLong();
+                for (int i = 0; i < MIN_HASHES; i++) {
+                    minHashes[i] = in.readInt();
+                }
+                int id = chunk.firstId + r;
+                for (int band = 0; band <= BANDS; band++) {
+                    long key;
+                    if (band == BANDS) {
+                        key = mix(exact);
+                    } else {
+                        key = band;
+                        for (int row = 0; row < ROWS; row++) {
+                            key = mix(key * 31 + minHashes[band * ROWS + row]);
+                        }
+                    }
+                    // High bits pick the partition, low bits group entries inside it
+                    int p = (int) Long.remainderUnsigned(key >>> 32, buckets.length);
+                    pending[p].putLong(((long) (int) key << 32) | id);
+                    if (!pending[p].hasRemaining()) {
+                        flush(buckets[p], pending[p]);
+                    }
+                }
+            }
+        }
+        for (int p = 0; p < pending.length; p++) {
+            flush(buckets[p], pending[p]);
+        }
+    }
+
+    // FileChannel serializes concurrent writes, so chunks can share a partition file
+    private static void flush(FileChannel bucket, ByteBuffer pending) throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            bucket.write(pending);
+        }
+        pending.clear();
+    }
+
+    private void dedup(FileChannel bucket, Signatures signatures, AtomicLongArray dropped) throws IOException {
+        long size = bucket.size() / Long.BYTES;
+        long[] pairs = new long[(int) size];
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        int n = 0;
+        for (long position = 0; n < pairs.length; ) {
+            buffer.clear();
+            int read = bucket.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Partition tronquée");
+            }
+            position += read;
+            buffer.flip();
+            while (buffer.remaining() >= Long.BYTES) {
+                pairs[n++] = buffer.getLong();
+            }
+        }
+        // Sorting groups entries by key, and by id inside a group, so the earliest always wins
+        Arrays.sort(pairs);
+
+        // Per group: exact hashes in id order, the same sorted, and which sorted slots an earlier member took
+        long[] exacts = new long[16];
+        long[] sorted = new long[16];
+        boolean[] claimed = new boolean[16];
+        for (int groupStart = 0; groupStart < pairs.length; ) {
+            int key = (int) (pairs[groupStart] >>> 32);
+            int groupEnd = groupStart + 1;
+            while (groupEnd < pairs.length && (int) (pairs[groupEnd] >>> 32) == key) {
+                groupEnd++;
+            }
+            int members = groupEnd - groupStart;
+            if (members == 1) {
+                groupStart = groupEnd;
+                continue;
+            }
+            if (exacts.length < members) {
+                exacts = new long[members];
+                sorted = new long[members];
+                claimed = new boolean[members];
+            }
+            for (int m = 0; m < members; m++) {
+                exacts[m] = signatures.exact((int) pairs[groupStart + m]);
+            }
+            System.arraycopy(exacts, 0, sorted, 0, members);
+            Arrays.sort(sorted, 0, members);
+            Arrays.fill(claimed, 0, members, false);
+
+            for (int j = groupStart; j < groupEnd; j++) {
+                // Two bands of one record can share a key
+                if (j > groupStart && pairs[j] == pairs[j - 1]) {
+                    continue;
+                }
+                int id = (int) pairs[j];
+                // Exact matches are settled before any similarity test: a record and its exact
+                // duplicate share every band, so each group holding one holds both and all
+                // partitions agree on the kind of drop whichever reaches the pair first
+                int slot = lowerBound(sorted, members, exacts[j - groupStart]);
+                boolean exact = claimed[slot];
+                claimed[slot] = true;
+                if (j == groupStart || isDropped(dropped, id)) {
+                    continue;
+                }
+                if (exact) {
+                    if (drop(dropped, id)) {
+                        exactDuplicates.incrementAndGet();
+                    }
+                    continue;
+                }
+                for (int k = Math.max(groupStart, j - MAX_GROUP_COMPARISONS); k < j; k++) {
+                    int earlier = (int) pairs[k];
+                    if (earlier == id) {
+                        continue;
+                    }
+                    if (signatures.similarity(earlier, id) >= similarity) {
+                        if (drop(dropped, id)) {
+                            nearDuplicates.incrementAndGet();
+                        }
+                        break;
+                    }
+                }
+            }
+            groupStart = groupEnd;
+        }
+    }
+
+    // First index in sorted[0, n) holding a value >= value
+    private static int lowerBound(long[] sorted, int n, long value) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isDropped(AtomicLongArray dropped, int id) {
+        return (dropped.get(id >>> 6) & (1L << id)) != 0;
+    }
+
+    // True only for the call that set the bit, so each drop is counted once
+    private static boolean drop(AtomicLongArray dropped, int id) {
+        long bit = 1L << id;
+        long old = dropped.getAndUpdate(id >>> 6, word -> word | bit);
+        return (old & bit) == 0;
+    }
+
+    private static long write(List<Chunk> chunks, AtomicLongArray dropped, Path output) throws IOException {
+        long written = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("[\n");
+            for (Chunk chunk : chunks) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(chunk.records), 1 << 16))) {
+                    for (int r = 0; r < chunk.count; r++) {
+                        Question question = readQuestion(in);
+                        if (isDropped(dropped, chunk.firstId + r)) {
+                            continue;
+                        }
+                        if (written++ > 0) {
+                            out.write(",\n");
+                        }
+                        writeJson(out, question);
+                    }
+                }
+            }
+            out.write("\n]\n");
+        }
+        return written;
+    }
+
+    private static void writeJson(Writer out, Question question) throws IOException {
+        out.write("{\"question\": ");
+        out.write(JSONObject.quote(question.getQuestion()));
+        out.write(", \"options\": [");
+        for (int i = 0; i < question.getOptions().size(); i++) {
+            if (i > 0) {
+                out.write(", ");
+            }
+            out.write(JSONObject.quote(question.getOptions().get(i)));
+        }
+        out.write("], \"correct_answer\": ");
+        out.write(Integer.toString(question.getCorrectAnswer()));
+        out.write(", \"category\": ");
+        out.write(JSONObject.quote(question.getCategory()));
+        out.write("}");
+    }
+
+    private static void writeQuestion(DataOutputStream out, Question question) throws IOException {
+        out.writeUTF(question.getQuestion());
+        out.writeShort(question.getCorrectAnswer());
+        out.writeShort(question.getOptions().size());
+        for (String option : question.getOptions()) {
+            out.writeUTF(option);
+        }
+        out.writeUTF(question.getCategory());
+    }
+
+    private static Question readQuestion(DataInputStream in) throws IOException {
+        String text = in.readUTF();
+        int correctAnswer = in.readShort();
+        int optionCount = in.readShort();
+        List<String> options = new ArrayList<>(optionCount);
+        for (int i = 0; i < optionCount; i++) {
+            options.add(in.readUTF());
+        }
+        return new Question(text, options, correctAnswer, in.readUTF());
+    }
+
+    /**
+     * Fills {@code minHashes} from the shingles of the normalized question and
+     * options, and returns the exact hash of that same text. Options are sorted
+     * first, so reordered answers still count as the same question.
+     *
+     * One permutation: each shingle is hashed once, its top bits pick a bin and
+     * the bin keeps its smallest value. Bins no shingle fell into borrow from
+     * the next filled bin, offset by the distance, so short texts still
+     * compare bin by bin.
+     */
+    static long signature(Question question, int[] minHashes) {
+        List<String> options = new ArrayList<>(question.getOptions().size());
+        for (String option : question.getOptions()) {
+            options.add(normalize(option));
+        }
+        Collections.sort(options);
+        String text = normalize(question.getQuestion()) + " | " + String.join(" | ", options);
+
+        Arrays.fill(minHashes, Integer.MAX_VALUE);
+        long filled = 0;
+        int shingles = Math.max(1, text.length() - SHINGLE + 1);
+        for (int s = 0; s < shingles; s++) {
+            long h = 0;
+            for (int i = s; i < Math.min(text.length(), s + SHINGLE); i++) {
+                h = h * 0x100000001b3L + text.charAt(i);
+            }
+            h = mix(h);
+            int bin = (int) (h >>> (Long.SIZE - Integer.numberOfTrailingZeros(MIN_HASHES)));
+            minHashes[bin] = Math.min(minHashes[bin], (int) h);
+            filled |= 1L << bin;
+        }
+        if (filled != 0 && filled != -1L) {
+            int[] values = minHashes.clone();
+            for (int bin = 0; bin < MIN_HASHES; bin++) {
+                if ((filled & (1L << bin)) == 0) {
+                    int distance = Long.numberOfTrailingZeros(Long.rotateRight(filled, bin + 1)) + 1;
+                    minHashes[bin] = values[(bin + distance) % MIN_HASHES] + distance * DENSIFY_STEP;
+                }
+            }
+        }
+
+        long exact = 0;
+        for (int i = 0; i < text.length(); i++) {
+            exact = exact * 0x100000001b3L + text.charAt(i);
+        }
+        return mix(exact);
+    }
+
+    /** Lower case, no accents, punctuation and runs of spaces folded into single spaces. */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        if (space && out.length() > 0) {
+            out.setLength(out.length() - 1);
+        }
+        return out.toString();
+    }
+
+    // Murmur3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Signature of any record by global id, straight from the mapped chunk files
+    private static final class Signatures {
+        private final int[] firstIds;
+        private final ByteBuffer[][] segments;
+
+        Signatures(List<Chunk> chunks) throws IOException {
+            firstIds = new int[chunks.size()];
+            segments = new ByteBuffer[chunks.size()][];
+            for (int c = 0; c < chunks.size(); c++) {
+                Chunk chunk = chunks.get(c);
+                firstIds[c] = chunk.firstId;
+                try (FileChannel channel = FileChannel.open(chunk.signatures, StandardOpenOption.READ)) {
+                    int count = (chunk.count + SIGNATURES_PER_SEGMENT - 1) / SIGNATURES_PER_SEGMENT;
+                    segments[c] = new ByteBuffer[count];
+                    for (int s = 0; s < count; s++) {
+                        long first = (long) s * SIGNATURES_PER_SEGMENT;
+                        long records = Math.min(SIGNATURES_PER_SEGMENT, chunk.count - first);
+                        segments[c][s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            first * SIGNATURE_BYTES, records * SIGNATURE_BYTES);
+                    }
+                }
+            }
+        }
+
+        long exact(int id) {
+            long at = locate(id);
+            return segment(at).getLong(offset(at));
+        }
+
+        /** Share of equal min-hashes, an estimate of the Jaccard similarity of the two shingle sets. */
+        double similarity(int a, int b) {
+            long atA = locate(a);
+            long atB = locate(b);
+            ByteBuffer segmentA = segment(atA);
+            ByteBuffer segmentB = segment(atB);
+            int offsetA = offset(atA) + Long.BYTES;
+            int offsetB = offset(atB) + Long.BYTES;
+            int equal = 0;
+            for (int i = 0; i < MIN_HASHES * Integer.BYTES; i += Integer.BYTES) {
+                if (segmentA.getInt(offsetA + i) == segmentB.getInt(offsetB + i)) {
+                    equal++;
+                }
+            }
+            return (double) equal / MIN_HASHES;
+        }
+
+        private ByteBuffer segment(long at) {
+            int local = (int) at;
+            return segments[(int) (at >>> 32)][local / SIGNATURES_PER_SEGMENT];
+        }
+
+        private static int offset(long at) {
+            return ((int) at % SIGNATURES_PER_SEGMENT) * SIGNATURE_BYTES;
+        }
+
+        // Chunk index in the high half, record within the chunk in the low half
+        private long locate(int id) {
+            int c = Arrays.binarySearch(firstIds, id);
+            if (c < 0) {
+                c = -c - 2;
+            }
+            // Empty chunks share their firstId with the next one
+            while (c + 1 < firstIds.length && firstIds[c + 1] == firstIds[c] && id >= firstIds[c + 1]) {
+                c++;
+            }
+            return ((long) c << 32) | (id - firstIds[c]);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
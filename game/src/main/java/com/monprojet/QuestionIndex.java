@@ -0,0 +1,653 @@
+package com.monprojet;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Search index over question text, options and category, behind the admin
+ * screen. Document ids are indices in the bank. Questions are indexed on a
+ * background thread in segments of {@link #SEGMENT_SIZE}; each segment is
+ * published as soon as it is complete, so the bank can be searched while it
+ * is still being indexed. The last, partial segment is published at the end
+ * of each batch and rebuilt when the next batch fills it further, so reloads
+ * that add a few questions at a time do not pile up small segments.
+ *
+ * A segment keeps its words sorted, and for each word the local ids of the
+ * questions holding it as a slice of one char[] (two bytes per posting); the
+ * slices of consecutive words are adjacent, so a prefix is a single binary
+ * search and one contiguous run. Categories are laid out the same way.
+ * Words are lower-cased and lose their accents, so "reseau" finds "Réseau".
+ *
+ * {@link #add}, {@link #retire} and {@link #search} run on the EDT.
+ */
+class QuestionIndex {
+    static final int SEGMENT_SIZE = 1 << 16;
+    /** Matches counted before a search stops; facets then cover only those. */
+    static final int MAX_COUNTED = 10_000;
+    // Rough cost of one binary search, in postings scanned
+    private static final int PROBE_COST = 8;
+    private static final char[] FOLD = new char[0x250];
+    private static final Comparator<Clause> SMALLEST_FIRST = Comparator.comparingInt(Clause::postings);
+
+    static {
+        for (char c = 0; c < FOLD.length; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            FOLD[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+    }
+
+    /** One page of matches, in bank order. */
+    static final class Result {
+        final int[] ids;
+        final int count;
+        final boolean complete;
+        final String[] categories;
+        final int[] categoryCounts;
+
+        Result(int[] ids, int count, boolean complete, String[] categories, int[] categoryCounts) {
+            this.ids = ids;
+            this.count = count;
+            this.complete = complete;
+            this.categories = categories;
+            this.categoryCounts = categoryCounts;
+        }
+    }
+
+    private static final class Segment {
+        final int base;
+        final int size;
+        final String[] words;
+        final int[] wordStarts;
+        final char[] wordDocs;
+        final int[] categoryOf;
+        final int[] categoryStarts;
+        final char[] categoryDocs;
+
+        Segment(int base, int size, String[] words, int[] wordStarts, char[] wordDocs,
+                int[] categoryOf, int[] categoryStarts, char[] categoryDocs) {
+            this.base = base;
+            this.size = size;
+            this.words = words;
+            this.wordStarts = wordStarts;
+            this.wordDocs = wordDocs;
+            this.categoryOf = categoryOf;
+            this.categoryStarts = categoryStarts;
+            this.categoryDocs = categoryDocs;
+        }
+    }
+
+    // Segments and the category names they refer to, swapped together
+    private static final class Snapshot {
+        final Segment[] segments;
+        final String[] categories;
+        final int size;
+
+        Snapshot(Segment[] segments, String[] categories, int size) {
+            this.segments = segments;
+            this.categories = categories;
+            this.size = size;
+        }
+    }
+
+    // A run of posting slices: one word or all the words sharing a prefix
+    private static final class Clause {
+        char[] docs;
+        int[] starts;
+        int from;
+        int to;
+
+        int postings() {
+            return starts[to] - starts[from];
+        }
+    }
+
+    private interface WordSink {
+        void accept(char[] word, int length);
+    }
+
+    private final Executor indexer;
+    private volatile Snapshot snapshot = new Snapshot(new Segment[0], new String[0], 0);
+    private int queued;
+    private final BitSet retired = new BitSet();
+
+    // Search scratch, EDT only, all clear between searches
+    private final long[] bits = new long[SEGMENT_SIZE / Long.SIZE];
+    private final long[] kept = new long[SEGMENT_SIZE / Long.SIZE];
+    private final int[] candidates = new int[SEGMENT_SIZE];
+
+    // Indexing state, indexer thread only
+    private final Builder builder = new Builder();
+
+    QuestionIndex() {
+        this(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "question-index");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }));
+    }
+
+    // Benchmarks pass a direct executor to index synchronously
+    QuestionIndex(Executor indexer) {
+        this.indexer = indexer;
+    }
+
+    /** Queues questions for indexing; they get the ids following everything queued before. */
+    public void add(List<Question> questions) {
+        queued += questions.size();
+        indexer.execute(() -> builder.add(questions));
+    }
+
+    /** Hides questions that left the bank from every later search. */
+    public void retire(int[] ids) {
+        for (int id : ids) {
+            retired.set(id);
+        }
+    }
+
+    /** Questions searchable so far. */
+    public int getIndexed() {
+        return snapshot.size;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Questions holding every word of {@code query}, the last one as a prefix
+     * unless the query ends with a separator, optionally in one category.
+     * Returns at most {@code limit} ids after skipping {@code offset} matches.
+     * An empty query lists the whole bank or category, with exact counts.
+     */
+    public Result search(String query, String category, int offset, int limit) {
+        Snapshot snapshot = this.snapshot;
+        List<String> words = new ArrayList<>();
+        forEachWord(query, new char[query.length()], (word, length) -> words.add(new String(word, 0, length)));
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        int categoryId = category == null ? -1 : Arrays.asList(snapshot.categories).indexOf(category);
+        if (category != null && categoryId < 0) {
+            return new Result(new int[0], 0, true, snapshot.categories, new int[snapshot.categories.length]);
+        }
+        return words.isEmpty()
+            ? browse(snapshot, categoryId, offset, limit)
+            : match(snapshot, words, lastIsPrefix, categoryId, offset, limit);
+    }
+
+    private Result match(Snapshot snapshot, List<String> words, boolean lastIsPrefix, int categoryId,
+            int offset, int limit) {
+        int[] ids = new int[limit];
+        int found = 0;
+        int[] categoryCounts = new int[snapshot.categories.length];
+        int matched = 0;
+        int cap = Math.max(MAX_COUNTED, offset + limit);
+        Clause[] clauses = new Clause[words.size()];
+        for (int i = 0; i < clauses.length; i++) {
+            clauses[i] = new Clause();
+        }
+
+        for (Segment segment : snapshot.segments) {
+            if (!resolve(segment, words, lastIsPrefix, clauses)) {
+                continue;
+            }
+            int count = intersect(clauses);
+            for (int i = 0; i < count; i++) {
+                int local = candidates[i];
+                int id = segment.base + local;
+                if (categoryId >= 0 && segment.categoryOf[local] != categoryId || retired.get(id)) {
+                    continue;
+                }
+                if (matched >= offset && found < limit) {
+                    ids[found++] = id;
+                }
+                categoryCounts[segment.categoryOf[local]]++;
+                if (++matched >= cap) {
+                    return new Result(Arrays.copyOf(ids, found), matched, false, snapshot.categories, categoryCounts);
+                }
+            }
+        }
+        return new Result(Arrays.copyOf(ids, found), matched, true, snapshot.categories, categoryCounts);
+    }
+
+    // Points each clause at its postings in this segment; false when one of them has none
+    private static boolean resolve(Segment segment, List<String> words, boolean lastIsPrefix, Clause[] clauses) {
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            Clause clause = clauses[i];
+            clause.docs = segment.wordDocs;
+            clause.starts = segment.wordStarts;
+            clause.from = lowerBound(segment.words, word);
+            if (lastIsPrefix && i == words.size() - 1) {
+                clause.to = lowerBound(segment.words, word + Character.MAX_VALUE);
+            } else {
+                clause.to = clause.from < segment.words.length && segment.words[clause.from].equals(word)
+                    ? clause.from + 1 : clause.from;
+            }
+            if (clause.from == clause.to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Leaves the local ids present in every clause in candidates, ascending, and returns how many
+    private int intersect(Clause[] clauses) {
+        Arrays.sort(clauses, SMALLEST_FIRST);
+        int count = union(clauses[0]);
+        for (int c = 1; c < clauses.length && count > 0; c++) {
+            count = retain(clauses[c], count);
+        }
+        return count;
+    }
+
+    // Each word costs whichever is cheaper: scanning its slice against the candidate bits, or one
+    // binary search per candidate. Both bitsets are left cleared.
+    private int retain(Clause clause, int count) {
+        for (int i = 0; i < count; i++) {
+            int local = candidates[i];
+            bits[local >>> 6] |= 1L << local;
+        }
+        for (int w = clause.from; w < clause.to; w++) {
+            int start = clause.starts[w];
+            int end = clause.starts[w + 1];
+            if (end - start <= count * PROBE_COST) {
+                for (int p = start; p < end; p++) {
+                    char local = clause.docs[p];
+                    kept[local >>> 6] |= bits[local >>> 6] & (1L << local);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    int local = candidates[i];
+                    if ((kept[local >>> 6] & (1L << local)) == 0 && contains(clause.docs, start, end, local)) {
+                        kept[local >>> 6] |= 1L << local;
+                    }
+                }
+            }
+        }
+        int retained = 0;
+        for (int i = 0; i < count; i++) {
+            int local = candidates[i];
+            long bit = 1L << local;
+            if ((kept[local >>> 6] & bit) != 0) {
+                candidates[retained++] = local;
+            }
+            bits[local >>> 6] &= ~bit;
+            kept[local >>> 6] &= ~bit;
+        }
+        return retained;
+    }
+
+    // Local ids spread evenly over a segment, so the search starts where the id should sit and
+    // gallops from there, touching a few cache lines instead of a full binary search's worth
+    private static boolean contains(char[] docs, int start, int end, int local) {
+        int pos = Math.min(end - 1, start + (int) ((long) (end - start) * local / SEGMENT_SIZE));
+        int lo;
+        int hi;
+        int bound = 1;
+        if (docs[pos] < local) {
+            lo = pos + 1;
+            while (pos + bound < end && docs[pos + bound] < local) {
+                lo = pos + bound + 1;
+                bound <<= 1;
+            }
+            hi = Math.min(end, pos + bound + 1);
+        } else if (docs[pos] > local) {
+            hi = pos;
+            while (pos - bound >= start && docs[pos - bound] > local) {
+                hi = pos - bound;
+                bound <<= 1;
+            }
+            lo = Math.max(start, pos - bound);
+        } else {
+            return true;
+        }
+        return Arrays.binarySearch(docs, lo, hi, (char) local) >= 0;
+    }
+
+    // One slice is already sorted; several are merged through a bitset
+    private int union(Clause clause) {
+        int start = clause.starts[clause.from];
+        int end = clause.starts[clause.to];
+        if (clause.to - clause.from == 1) {
+            for (int p = start; p < end; p++) {
+                candidates[p - start] = clause.docs[p];
+            }
+            return end - start;
+        }
+        for (int p = start; p < end; p++) {
+            char local = clause.docs[p];
+            bits[local >>> 6] |= 1L << local;
+        }
+        int count = 0;
+        for (int w = 0; w < bits.length; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                candidates[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            bits[w] = 0;
+        }
+        return count;
+    }
+
+    // Exact counts straight from the category slices; whole segments are skipped while paging
+    private Result browse(Snapshot snapshot, int categoryId, int offset, int limit) {
+        int[] categoryCounts = new int[snapshot.categories.length];
+        for (Segment segment : snapshot.segments) {
+            for (int c = 0; c + 1 < segment.categoryStarts.length; c++) {
+                categoryCounts[c] += segment.categoryStarts[c + 1] - segment.categoryStarts[c];
+            }
+        }
+        int live = 0;
+        for (int id = retired.nextSetBit(0); id >= 0 && id < snapshot.size; id = retired.nextSetBit(id + 1)) {
+            Segment segment = segmentOf(snapshot, id);
+            categoryCounts[segment.categoryOf[id - segment.base]]--;
+        }
+        for (int c = 0; c < categoryCounts.length; c++) {
+            if (categoryId < 0 || c == categoryId) {
+                live += categoryCounts[c];
+            }
+        }
+
+        int[] ids = new int[limit];
+        int found = 0;
+        int skip = offset;
+        for (Segment segment : snapshot.segments) {
+            if (found == limit) {
+                break;
+            }
+            int from = 0;
+            int to = segment.size;
+            if (categoryId >= 0) {
+                if (categoryId + 1 >= segment.categoryStarts.length) {
+                    continue;
+                }
+                from = segment.categoryStarts[categoryId];
+                to = segment.categoryStarts[categoryId + 1];
+            }
+            int present = to - from - retiredIn(segment, categoryId);
+            if (skip >= present) {
+                skip -= present;
+                continue;
+            }
+            for (int p = from; p < to && found < limit; p++) {
+                int id = segment.base + (categoryId < 0 ? p : segment.categoryDocs[p]);
+                if (retired.get(id)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    ids[found++] = id;
+                }
+            }
+        }
+        return new Result(Arrays.copyOf(ids, found), live, true, snapshot.categories, categoryCounts);
+    }
+
+    private int retiredIn(Segment segment, int categoryId) {
+        int count = 0;
+        int end = segment.base + segment.size;
+        for (int id = retired.nextSetBit(segment.base); id >= 0 && id < end; id = retired.nextSetBit(id + 1)) {
+            if (categoryId < 0 || segment.categoryOf[id - segment.base] == categoryId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Segment segmentOf(Snapshot snapshot, int id) {
+        int lo = 0;
+        int hi = snapshot.segments.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (snapshot.segments[mid].base <= id) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return snapshot.segments[lo];
+    }
+
+    private static int lowerBound(String[] words, String word) {
+        int lo = 0;
+        int hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(word) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Splits on anything but letters and digits, folding case and accents into word, which must fit the text
+    private static void forEachWord(String text, char[] word, WordSink sink) {
+        int length = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word[length++] = c < FOLD.length ? FOLD[c] : Character.toLowerCase(c);
+            } else if (length > 0) {
+                sink.accept(word, length);
+                length = 0;
+            }
+        }
+    }
+
+    // Collects one segment's postings, then sorts them into the compact layout
+    private final class Builder {
+        // Dictionary shared by all segments, so equal words are one String
+        private String[] dictionary = new String[1 << 12];
+        private int[] slots = new int[1 << 13];
+        private int dictionarySize;
+        private final Map<String, Integer> categoryIds = new HashMap<>();
+        private final List<String> categories = new ArrayList<>();
+
+        // Current segment: distinct words by dictionary id, and one (word, doc) pair per posting
+        private int[] localOf = new int[1 << 12];
+        private int[] localWords = new int[1 << 12];
+        private int[] lastDoc = new int[1 << 12];
+        private int localCount;
+        private int[] pairWords = new int[1 << 16];
+        private char[] pairDocs = new char[1 << 16];
+        private int pairCount;
+        private final int[] categoryOf = new int[SEGMENT_SIZE];
+        private char[] word = new char[256];
+        private int docs;
+        private int base;
+        // The current segment is already in the snapshot, as its last one
+        private boolean open;
+        private boolean failed;
+        private final WordSink sink = this::addWord;
+
+        Builder() {
+            Arrays.fill(localOf, -1);
+        }
+
+        void add(List<Question> questions) {
+            if (failed) {
+                return;
+            }
+            try {
+                for (Question question : questions) {
+                    words(question.getQuestion());
+                    for (String option : question.getOptions()) {
+                        words(option);
+                    }
+                    words(question.getCategory());
+                    categoryOf[docs] = categoryIds.computeIfAbsent(question.getCategory(), name -> {
+                        categories.add(name);
+                        return categories.size() - 1;
+                    });
+                    if (++docs == SEGMENT_SIZE) {
+                        seal();
+                    }
+                }
+                if (docs > 0) {
+                    publish();
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+                System.err.println("Index des questions interrompu - " + e);
+            }
+        }
+
+        private void words(String text) {
+            if (text.length() > word.length) {
+                word = new char[text.length()];
+            }
+            forEachWord(text, word, sink);
+        }
+
+        private void addWord(char[] word, int length) {
+            int id = intern(word, length);
+            if (id >= localOf.length) {
+                int old = localOf.length;
+                localOf = Arrays.copyOf(localOf, dictionary.length);
+                Arrays.fill(localOf, old, localOf.length, -1);
+            }
+            int local = localOf[id];
+            if (local < 0) {
+                if (localCount == localWords.length) {
+                    localWords = Arrays.copyOf(localWords, localCount * 2);
+                    lastDoc = Arrays.copyOf(lastDoc, localCount * 2);
+                }
+                local = localCount++;
+                localOf[id] = local;
+                localWords[local] = id;
+                lastDoc[local] = -1;
+            }
+            if (lastDoc[local] == docs) {
+                return;
+            }
+            lastDoc[local] = docs;
+            if (pairCount == pairWords.length) {
+                pairWords = Arrays.copyOf(pairWords, pairCount * 2);
+                pairDocs = Arrays.copyOf(pairDocs, pairCount * 2);
+            }
+            pairWords[pairCount] = local;
+            pairDocs[pairCount++] = (char) docs;
+        }
+
+        private int intern(char[] word, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + word[i];
+            }
+            int mask = slots.length - 1;
+            for (int slot = slotOf(hash); ; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (id < 0) {
+                    break;
+                }
+                if (equals(dictionary[id], word, length)) {
+                    return id;
+                }
+            }
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+            }
+            int id = dictionarySize++;
+            dictionary[id] = new String(word, 0, length);
+            if (dictionarySize * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                for (int i = 0; i < dictionarySize; i++) {
+                    place(i);
+                }
+            } else {
+                place(id);
+            }
+            return id;
+        }
+
+        private void place(int id) {
+            int mask = slots.length - 1;
+            int slot = slotOf(dictionary[id].hashCode());
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+
+        // Same hash as String.hashCode, spread over the top bits
+        private int slotOf(int hash) {
+            return (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(slots.length - 1);
+        }
+
+        private boolean equals(String known, char[] word, int length) {
+            if (known.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (known.charAt(i) != word[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void seal() {
+            publish();
+            for (int local = 0; local < localCount; local++) {
+                localOf[localWords[local]] = -1;
+            }
+            localCount = 0;
+            pairCount = 0;
+            base += docs;
+            docs = 0;
+            open = false;
+        }
+
+        // Builds the current segment and swaps it in, in place of its previous build if any
+        private void publish() {
+            // Words in sorted order; postings grouped per word by counting sort, docs stay ascending
+            String[] words = new String[localCount];
+            for (int local = 0; local < localCount; local++) {
+                words[local] = dictionary[localWords[local]];
+            }
+            Arrays.sort(words);
+            int[] rank = new int[localCount];
+            for (int local = 0; local < localCount; local++) {
+                rank[local] = Arrays.binarySearch(words, dictionary[localWords[local]]);
+            }
+            int[] wordStarts = new int[localCount + 1];
+            for (int p = 0; p < pairCount; p++) {
+                wordStarts[rank[pairWords[p]] + 1]++;
+            }
+            for (int r = 0; r < localCount; r++) {
+                wordStarts[r + 1] += wordStarts[r];
+            }
+            int[] next = Arrays.copyOf(wordStarts, localCount);
+            char[] wordDocs = new char[pairCount];
+            for (int p = 0; p < pairCount; p++) {
+                wordDocs[next[rank[pairWords[p]]]++] = pairDocs[p];
+            }
+
+            int[] categoryStarts = new int[categories.size() + 1];
+            for (int d = 0; d < docs; d++) {
+                categoryStarts[categoryOf[d] + 1]++;
+            }
+            for (int c = 0; c < categories.size(); c++) {
+                categoryStarts[c + 1] += categoryStarts[c];
+            }
+            int[] nextInCategory = Arrays.copyOf(categoryStarts, categories.size());
+            char[] categoryDocs = new char[docs];
+            for (int d = 0; d < docs; d++) {
+                categoryDocs[nextInCategory[categoryOf[d]]++] = (char) d;
+            }
+
+            Segment segment = new Segment(base, docs, words, wordStarts, wordDocs,
+                Arrays.copyOf(categoryOf, docs), categoryStarts, categoryDocs);
+            Snapshot current = snapshot;
+            int kept = open ? current.segments.length - 1 : current.segments.length;
+            Segment[] segments = Arrays.copyOf(current.segments, kept + 1);
+            segments[kept] = segment;
+            snapshot = new Snapshot(segments, categories.toArray(new String[0]), base + docs);
+            open = true;
+        }
+    }
+}
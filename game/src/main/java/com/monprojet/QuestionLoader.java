@@ -0,0 +1,105 @@
+package com.monprojet;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+import org.json.*;
+
+/**
+ * Streaming reader for question banks. The top-level JSON array is consumed one
+ * entry at a time, so memory stays bounded by the largest single entry instead
+ * of the whole file.
+ */
+class QuestionLoader {
+    private final JSONTokener tokener;
+    private final ObjIntConsumer<String> onMalformed;
+    private int record;
+    private boolean started;
+    private boolean finished;
+
+    public QuestionLoader(Reader reader, ObjIntConsumer<String> onMalformed) {
+        this.tokener = new JSONTokener(reader);
+        this.onMalformed = onMalformed;
+    }
+
+    /**
+     * Returns the next valid question, or null once the array is exhausted.
+     * Entries with missing or mistyped fields are reported to the malformed
+     * handler with their 1-based record number and skipped. Broken JSON syntax
+     * cannot be resynchronized and is thrown with the record number attached.
+     */
+    public Question next() {
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            char c = tokener.nextClean();
+            if (c != '[') {
+                throw tokener.syntaxError("Un tableau JSON est attendu");
+            }
+            if (tokener.nextClean() == ']') {
+                finished = true;
+                return null;
+            }
+            tokener.back();
+        }
+
+        while (true) {
+            record++;
+            Object value;
+            try {
+                value = tokener.nextValue();
+            } catch (JSONException e) {
+                throw new JSONException("Entrée #" + record + ": " + e.getMessage(), e);
+            }
+
+            char c = tokener.nextClean();
+            if (c == ']') {
+                finished = true;
+            } else if (c != ',') {
+                throw tokener.syntaxError("Entrée #" + record + ": ',' ou ']' attendu");
+            }
+
+            Question question = toQuestion(value, record, onMalformed);
+            if (question != null) {
+                return question;
+            }
+            if (finished) {
+                return null;
+            }
+        }
+    }
+
+    /** Number of entries read so far, valid or not. */
+    public int getRecordCount() {
+        return record;
+    }
+
+    /** Validates one entry, reporting it as {@code record} to {@code onMalformed} when it is unusable. */
+    static Question toQuestion(Object value, int record, ObjIntConsumer<String> onMalformed) {
+        if (!(value instanceof JSONObject)) {
+            onMalformed.accept("objet attendu", record);
+            return null;
+        }
+        try {
+            JSONObject obj = (JSONObject) value;
+            String question = obj.getString("question");
+            JSONArray optionsArray = obj.getJSONArray("options");
+            List<String> options = new ArrayList<>(optionsArray.length());
+            for (int j = 0; j < optionsArray.length(); j++) {
+                options.add(optionsArray.getString(j));
+            }
+            int correctAnswer = obj.getInt("correct_answer");
+            if (correctAnswer < 0 || correctAnswer >= options.size()) {
+                onMalformed.accept("correct_answer hors limites", record);
+                return null;
+            }
+            String category = obj.optString("category", "Général");
+            return new Question(question, options, correctAnswer, category);
+        } catch (JSONException e) {
+            onMalformed.accept(e.getMessage(), record);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Draws distinct, not-yet-used question indices. Usage lives in a bitset
+ * rather than on each Question, so a draw costs time proportional to the
+ * number of questions requested, not to the size of the bank. Once the bank
+ * runs dry the bitset is cleared and a new cycle begins. The bank may grow
+ * ({@link #resize}) and indices may be retired, which keeps them out of every
+ * later draw without renumbering the others.
+ */
+class QuestionSampler {
+    // Past this share of used questions, random probing misses too often and draws pick from the order instead
+    private static final double ORDER_THRESHOLD = 0.5;
+    private static final int QUOTA_ATTEMPTS_PER_SLOT = 64;
+    private static final int ADAPTIVE_ATTEMPTS = 16;
+
+    private int size;
+    private long[] used;
+    private final Random random;
+    private int usedCount;
+    // Allocated on the first retire; retired indices stay marked used across cycles
+    private long[] retired;
+    private int retiredCount;
+    // Built the first time a cycle passes ORDER_THRESHOLD, then kept in step: the unused indices
+    // first, the used ones next, the retired ones last; slots[i] is where i sits in order
+    private int[] order;
+    private int[] slots;
+    // Adaptive draws this cycle per band, by the question's band when drawn
+    private int[] takenByBand;
+
+    public QuestionSampler(int size, Random random) {
+        this.size = size;
+        this.used = new long[(size + 63) >>> 6];
+        this.random = random;
+    }
+
+    /** Draws up to {@code k} distinct unused indices and marks them used. */
+    public int[] draw(int k) {
+        k = prepare(k);
+        int[] drawn = new int[k];
+        drawAny(drawn, 0, k);
+        return drawn;
+    }
+
+    /**
+     * Draws up to {@code k} indices, taking at most {@code quotas.get(c)} from
+     * each listed category {@code c}; unlisted categories are unrestricted.
+     * Quotas are best effort: slots that cannot be filled within the probe
+     * budget are filled from any category.
+     */
+    public int[] draw(int k, Map<String, Integer> quotas, IntFunction<String> categoryOf) {
+        k = prepare(k);
+        Map<String, Integer> remaining = new HashMap<>(quotas);
+        int[] drawn = new int[k];
+        int n = 0;
+        ensureOrder(k);
+        for (int attempts = k * QUOTA_ATTEMPTS_PER_SLOT; n < k && attempts > 0 && usedCount < size; attempts--) {
+            int i = order != null ? order[random.nextInt(remaining())] : random.nextInt(size);
+            if (isUsed(i)) {
+                continue;
+            }
+            String category = categoryOf.apply(i);
+            Integer left = remaining.get(category);
+            if (left != null) {
+                if (left == 0) {
+                    continue;
+                }
+                remaining.put(category, left - 1);
+            }
+            markUsed(i);
+            drawn[n++] = i;
+        }
+        drawAny(drawn, n, k);
+        return drawn;
+    }
+
+    /**
+     * Draws one unused index near {@code difficulty} from {@code stats}, or
+     * -1 when every question is retired. Bands whose questions this cycle
+     * already took are passed over for the nearest ones with some left; a
+     * uniform draw is the last resort. Never starts a new cycle unless the
+     * whole bank is used, which {@link #ensureRemaining} leaves to between games.
+     */
+    public int draw(QuestionStats stats, double difficulty) {
+        if (prepare(1) == 0) {
+            return -1;
+        }
+        if (takenByBand == null) {
+            takenByBand = new int[QuestionStats.BANDS];
+        }
+        for (int attempt = 0; attempt < ADAPTIVE_ATTEMPTS; attempt++) {
+            int i = stats.sample(difficulty, random, takenByBand);
+            if (i >= 0 && i < size && !isUsed(i)) {
+                markUsed(i);
+                takenByBand[stats.getBand(i)]++;
+                return i;
+            }
+        }
+        int i = draw(1)[0];
+        takenByBand[stats.getBand(i)]++;
+        return i;
+    }
+
+    /**
+     * Starts a new cycle now unless {@code draws} more questions can be drawn
+     * within this one. Called before a game, so its draws never reach the end
+     * of a cycle halfway and no question comes up twice in it, unless the
+     * bank holds fewer than {@code draws}.
+     */
+    public void ensureRemaining(int draws) {
+        prepare(draws);
+    }
+
+    public boolean isUsed(int i) {
+        return (used[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public int remaining() {
+        return size - usedCount;
+    }
+
+    /** Questions that can still be drawn in some cycle, i.e. not retired. */
+    public int drawable() {
+        return size - retiredCount;
+    }
+
+    /** Marks {@code i} used for the rest of the cycle, as if it had been drawn. */
+    public void reserve(int i) {
+        if (i < size && !isUsed(i)) {
+            markUsed(i);
+        }
+    }
+
+    /** Makes {@code i} drawable again in this cycle, undoing a draw or {@link #reserve}; retired stays retired. */
+    public void release(int i) {
+        if (i < size && isUsed(i) && (retired == null || (retired[i >>> 6] & (1L << i)) == 0)) {
+            if (order != null) {
+                swap(slots[i], remaining());
+            }
+            used[i >>> 6] &= ~(1L << i);
+            usedCount--;
+        }
+    }
+
+    /** Makes every question available again, except retired ones. */
+    public void clear() {
+        if (retired == null) {
+            Arrays.fill(used, 0L);
+        } else {
+            System.arraycopy(retired, 0, used, 0, used.length);
+        }
+        // The order needs nothing: every index before the retired ones is now unused
+        usedCount = retiredCount;
+        if (takenByBand != null) {
+            Arrays.fill(takenByBand, 0);
+        }
+    }
+
+    /** Extends the bank to {@code newSize}; the new indices start unused. */
+    public void resize(int newSize) {
+        if (newSize <= size) {
+            return;
+        }
+        int words = (newSize + 63) >>> 6;
+        used = Arrays.copyOf(used, words);
+        if (retired != null) {
+            retired = Arrays.copyOf(retired, words);
+        }
+        if (order != null) {
+            order = Arrays.copyOf(order, newSize);
+            slots = Arrays.copyOf(slots, newSize);
+            // Each new index moves past the retired and used ones to the end of the unused
+            for (int i = size; i < newSize; i++) {
+                order[i] = i;
+                slots[i] = i;
+                swap(i, i - retiredCount);
+                swap(i - retiredCount, i - usedCount);
+            }
+        }
+        size = newSize;
+    }
+
+    /** Never draws index {@code i} again. */
+    public void retire(int i) {
+        if (retired == null) {
+            retired = new long[used.length];
+        }
+        if ((retired[i >>> 6] & (1L << i)) != 0) {
+            return;
+        }
+        retired[i >>> 6] |= 1L << i;
+        if (!isUsed(i)) {
+            markUsed(i);
+        }
+        if (order != null) {
+            swap(slots[i], drawable() - 1);
+        }
+        retiredCount++;
+    }
+
+    private int prepare(int k) {
+        k = Math.min(k, size - retiredCount);
+        if (remaining() < k) {
+            clear();
+        }
+        return k;
+    }
+
+    private void markUsed(int i) {
+        if (order != null) {
+            swap(slots[i], remaining() - 1);
+        }
+        used[i >>> 6] |= 1L << i;
+        usedCount++;
+    }
+
+    // Fills drawn[from, to) with unused indices: by probing while most are unused, from the order after
+    private void drawAny(int[] drawn, int from, int to) {
+        ensureOrder(to - from);
+        for (int n = from; n < to; n++) {
+            int i;
+            if (order != null) {
+                i = order[random.nextInt(remaining())];
+            } else {
+                do {
+                    i = random.nextInt(size);
+                } while (isUsed(i));
+            }
+            markUsed(i);
+            drawn[n] = i;
+        }
+    }
+
+    // Lays out the order once k more draws would pass ORDER_THRESHOLD; a single pass over
+    // the bank, after which every draw, release and clear costs O(1) for good
+    private void ensureOrder(int k) {
+        if (order != null || usedCount + k <= size * ORDER_THRESHOLD) {
+            return;
+        }
+        order = new int[size];
+        slots = new int[size];
+        int free = 0;
+        int taken = remaining();
+        int gone = drawable();
+        for (int i = 0; i < size; i++) {
+            boolean isRetired = retired != null && (retired[i >>> 6] & (1L << i)) != 0;
+            int slot = isRetired ? gone++ : isUsed(i) ? taken++ : free++;
+            order[slot] = i;
+            slots[i] = slot;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int first = order[a];
+        int second = order[b];
+        order[a] = second;
+        order[b] = first;
+        slots[second] = a;
+        slots[first] = b;
+    }
+}
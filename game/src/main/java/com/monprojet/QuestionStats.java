@@ -0,0 +1,262 @@
+package com.monprojet;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+
+/**
+ * Answer statistics per question (attempts, correct answers, time spent),
+ * shared by every engine playing on the same bank. Recording is lock-free:
+ * counters are added atomically in primitive arrays, allocated in chunks the
+ * first time a question of the chunk is answered, so a bank nobody has
+ * played yet costs next to nothing.
+ *
+ * Each question also sits in one of {@link #BANDS} difficulty bands, moved as
+ * its success rate changes. Per band, a Fenwick tree over blocks of
+ * {@link #BLOCK_SIZE} questions counts the members, so picking a random
+ * question of a given difficulty and moving one between bands both cost
+ * O(log n), however large the bank.
+ */
+class QuestionStats {
+    static final int BANDS = 8;
+    static final int BLOCK_SIZE = 64;
+    private static final int CHUNK_SIZE = 1 << 12;
+    // Unanswered questions count as half right out of PRIOR_ATTEMPTS
+    private static final double PRIOR_ATTEMPTS = 4;
+    private static final int DEFAULT_BAND = bandOf(0.5);
+    // Weight of a band one step further from the target than the previous one
+    private static final double BAND_FALLOFF = 0.25;
+    private static final double[] FALLOFF_BY_DISTANCE = new double[BANDS];
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    static {
+        for (int distance = 0; distance < BANDS; distance++) {
+            FALLOFF_BY_DISTANCE[distance] = Math.pow(BAND_FALLOFF, distance);
+        }
+    }
+
+    private static final class Chunk {
+        // Attempts in the high half, correct answers in the low half, so one add records both
+        final long[] outcomes = new long[CHUNK_SIZE];
+        final long[] answerNanos = new long[CHUNK_SIZE];
+        final byte[] bands = new byte[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(bands, (byte) DEFAULT_BAND);
+        }
+    }
+
+    // Band member counts, per block and in total; replaced whole when the bank grows
+    private static final class Trees {
+        final int blocks;
+        final int[][] counts;
+        final int[] members = new int[BANDS];
+
+        Trees(int blocks) {
+            this.blocks = blocks;
+            this.counts = new int[BANDS][blocks + 1];
+        }
+    }
+
+    private volatile int size;
+    private volatile Chunk[] chunks;
+    private volatile Trees trees;
+
+    public QuestionStats(int size) {
+        this.size = size;
+        this.chunks = new Chunk[(size + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        this.trees = buildTrees(size, chunks);
+    }
+
+    /** Records one answer to {@code question}; {@code correct} is false for a timeout too. */
+    public void record(int question, boolean correct, long answerNanos) {
+        Chunk chunk = chunk(question);
+        int j = question % CHUNK_SIZE;
+        long delta = (1L << 32) | (correct ? 1 : 0);
+        long outcome = (long) LONGS.getAndAdd(chunk.outcomes, j, delta) + delta;
+        LONGS.getAndAdd(chunk.answerNanos, j, answerNanos);
+
+        int band = bandOf(1 - successRate(outcome));
+        for (int old = (byte) BYTES.getVolatile(chunk.bands, j); old != band; old = (byte) BYTES.getVolatile(chunk.bands, j)) {
+            if (BYTES.compareAndSet(chunk.bands, j, (byte) old, (byte) band)) {
+                Trees trees = this.trees;
+                add(trees, old, question / BLOCK_SIZE, -1);
+                add(trees, band, question / BLOCK_SIZE, 1);
+                break;
+            }
+        }
+    }
+
+    public int getAttempts(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        return chunk == null ? 0 : (int) ((long) LONGS.getOpaque(chunk.outcomes, question % CHUNK_SIZE) >>> 32);
+    }
+
+    public int getCorrectAnswers(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        return chunk == null ? 0 : (int) (long) LONGS.getOpaque(chunk.outcomes, question % CHUNK_SIZE);
+    }
+
+    /** Mean time spent on the question, 0 when nobody answered it yet. */
+    public long getMeanAnswerNanos(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        int attempts = getAttempts(question);
+        return attempts == 0 ? 0 : (long) LONGS.getOpaque(chunk.answerNanos, question % CHUNK_SIZE) / attempts;
+    }
+
+    /** Share of correct answers, pulled towards one half while there are few attempts. */
+    public double getSuccessRate(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        return successRate(chunk == null ? 0 : (long) LONGS.getOpaque(chunk.outcomes, question % CHUNK_SIZE));
+    }
+
+    /** 0 for a question everybody gets right, 1 for one nobody does. */
+    public double getDifficulty(int question) {
+        return 1 - getSuccessRate(question);
+    }
+
+    /** The band the question currently sits in, {@code bandOf} its difficulty. */
+    public int getBand(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        return chunk == null ? DEFAULT_BAND : (byte) BYTES.getOpaque(chunk.bands, question % CHUNK_SIZE);
+    }
+
+    /**
+     * Draws a question whose difficulty is near {@code difficulty}: a
+     * non-empty band is picked with weights falling off with its distance
+     * from the target band, then a question uniformly within it. Returns -1
+     * only when the bank is empty.
+     */
+    public int sample(double difficulty, Random random) {
+        return sample(difficulty, random, null);
+    }
+
+    /**
+     * Same as {@link #sample(double, Random)}, but a band counts as empty once
+     * the caller has taken as many questions from it as it has members, per
+     * {@code takenByBand}; a band's members that the caller already took can
+     * still come back, so the caller rejects those.
+     */
+    public int sample(double difficulty, Random random, int[] takenByBand) {
+        Trees trees = this.trees;
+        int target = bandOf(difficulty);
+        double total = 0;
+        for (int band = 0; band < BANDS; band++) {
+            total += weight(trees, band, target, takenByBand);
+        }
+        if (total <= 0) {
+            return -1;
+        }
+        double pick = random.nextDouble() * total;
+        int band = 0;
+        while (band < BANDS - 1 && (pick -= weight(trees, band, target, takenByBand)) >= 0) {
+            band++;
+        }
+        int members = (int) INTS.getOpaque(trees.members, band);
+        return members <= 0 ? -1 : find(trees, band, random.nextInt(members));
+    }
+
+    /** Extends the statistics to a bank that grew by appending. */
+    public synchronized void resize(int newSize) {
+        if (newSize <= size) {
+            return;
+        }
+        Chunk[] grown = Arrays.copyOf(chunks, (newSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        // Band moves racing with the rebuild may miss the new trees; sampling tolerates the drift
+        trees = buildTrees(newSize, grown);
+        chunks = grown;
+        size = newSize;
+    }
+
+    static int bandOf(double difficulty) {
+        return Math.max(0, Math.min(BANDS - 1, (int) (difficulty * BANDS)));
+    }
+
+    private static double successRate(long outcome) {
+        return ((int) outcome + PRIOR_ATTEMPTS / 2) / ((outcome >>> 32) + PRIOR_ATTEMPTS);
+    }
+
+    private Chunk chunk(int question) {
+        Chunk chunk = chunks[question / CHUNK_SIZE];
+        if (chunk != null) {
+            return chunk;
+        }
+        synchronized (this) {
+            chunk = chunks[question / CHUNK_SIZE];
+            if (chunk == null) {
+                chunk = new Chunk();
+                Chunk[] published = chunks.clone();
+                published[question / CHUNK_SIZE] = chunk;
+                chunks = published;
+            }
+            return chunk;
+        }
+    }
+
+    private static Trees buildTrees(int size, Chunk[] chunks) {
+        Trees trees = new Trees((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        for (int question = 0; question < size; question++) {
+            Chunk chunk = chunks[question / CHUNK_SIZE];
+            int band = chunk == null ? DEFAULT_BAND : chunk.bands[question % CHUNK_SIZE];
+            trees.counts[band][question / BLOCK_SIZE + 1]++;
+            trees.members[band]++;
+        }
+        // Linear Fenwick construction: each node passes its sum to its parent
+        for (int[] tree : trees.counts) {
+            for (int node = 1; node <= trees.blocks; node++) {
+                int parent = node + (node & -node);
+                if (parent <= trees.blocks) {
+                    tree[parent] += tree[node];
+                }
+            }
+        }
+        return trees;
+    }
+
+    private static void add(Trees trees, int band, int block, int delta) {
+        INTS.getAndAdd(trees.members, band, delta);
+        int[] tree = trees.counts[band];
+        for (int node = block + 1; node <= trees.blocks; node += node & -node) {
+            INTS.getAndAdd(tree, node, delta);
+        }
+    }
+
+    // Every non-empty band can be picked, however small, so a player far from the crowd still gets their level
+    private static double weight(Trees trees, int band, int target, int[] takenByBand) {
+        int left = (int) INTS.getOpaque(trees.members, band) - (takenByBand == null ? 0 : takenByBand[band]);
+        return left > 0 ? FALLOFF_BY_DISTANCE[Math.abs(band - target)] : 0;
+    }
+
+    // Descends the tree to the block holding the rank-th member, then scans the block for it
+    private int find(Trees trees, int band, int rank) {
+        int[] tree = trees.counts[band];
+        int block = 0;
+        for (int step = Integer.highestOneBit(trees.blocks); step > 0; step >>= 1) {
+            int node = block + step;
+            if (node <= trees.blocks) {
+                int count = (int) INTS.getOpaque(tree, node);
+                if (count <= rank) {
+                    block = node;
+                    rank -= count;
+                }
+            }
+        }
+        // Counts read while other threads move questions can point one block off; take the nearest member
+        int from = Math.min(block, trees.blocks - 1) * BLOCK_SIZE;
+        int to = Math.min(from + BLOCK_SIZE, size);
+        Chunk chunk = chunks[from / CHUNK_SIZE];
+        int last = -1;
+        for (int question = from; question < to; question++) {
+            int inBand = chunk == null ? DEFAULT_BAND : (byte) BYTES.getOpaque(chunk.bands, question % CHUNK_SIZE);
+            if (inBand == band) {
+                if (rank-- == 0) {
+                    return question;
+                }
+                last = question;
+            }
+        }
+        return last;
+    }
+}
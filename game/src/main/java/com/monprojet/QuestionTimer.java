@@ -0,0 +1,63 @@
+package com.monprojet;
+
+/**
+ * Countdown for the question on screen. Time is measured with
+ * {@link System#nanoTime()} from the moment the question is first painted.
+ * The Swing ticker only drives repaints and expiry, so a late tick never
+ * skews the remaining time.
+ */
+class QuestionTimer {
+    private final long limitNanos;
+    private final javax.swing.Timer ticker;
+    private long startNanos;
+    private boolean running;
+
+    public QuestionTimer(int limitSeconds, int refreshHz, Runnable onTick, Runnable onExpired) {
+        this.limitNanos = limitSeconds * 1_000_000_000L;
+        this.ticker = new javax.swing.Timer(Math.max(1, 1000 / refreshHz), e -> {
+            if (remainingNanos() <= 0) {
+                stop();
+                onExpired.run();
+            } else {
+                onTick.run();
+            }
+        });
+        ticker.setCoalesce(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        ticker.start();
+    }
+
+    /** Stops the countdown and returns how long the question was on screen, in nanoseconds. */
+    public long stop() {
+        ticker.stop();
+        if (!running) {
+            return 0;
+        }
+        running = false;
+        return System.nanoTime() - startNanos;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long remainingNanos() {
+        if (!running) {
+            return limitNanos;
+        }
+        return Math.max(0, limitNanos - (System.nanoTime() - startNanos));
+    }
+
+    /** Whole seconds left, rounded up the way a countdown is read. */
+    public int remainingSeconds() {
+        return (int) ((remainingNanos() + 999_999_999L) / 1_000_000_000L);
+    }
+
+    public long getLimitNanos() {
+        return limitNanos;
+    }
+}
@@ -0,0 +1,388 @@
+package com.monprojet;
+
+import java.util.*;
+
+/**
+ * The quiz rules without any UI. Clients drive it with commands (start,
+ * selectPlayers, addPlayer, answer, ...) and follow it through {@link Listener}
+ * events; a command issued in the wrong state throws IllegalStateException.
+ * Not thread-safe: use one engine per thread.
+ *
+ * With {@link QuestionStats}, every answer feeds the shared statistics and
+ * each question is drawn when its turn comes, near the difficulty that fits
+ * the player's skill so far. Skill and difficulty share one logistic scale,
+ * as in Elo ratings: a player of skill s answers a question of difficulty d
+ * correctly with probability 1 / (1 + e^(logit(d) - s)). Without statistics,
+ * questions are drawn uniformly when the game starts.
+ */
+class QuizEngine {
+    static final int MIN_PLAYERS = 2;
+    static final int MAX_PLAYERS = 4;
+    static final int QUESTIONS_PER_PLAYER = 5;
+    static final int POINTS_PER_CORRECT_ANSWER = 10;
+    static final int QUESTION_TIME_LIMIT = 30;
+    // Share of right answers the drawn questions aim for, and how far the first answer moves the
+    // skill; later ones move it less, as the estimate settles
+    private static final double TARGET_SUCCESS = 0.65;
+    private static final double SKILL_STEP = 2.5;
+
+    enum State { MENU, PLAYER_SELECT, NAME_INPUT, GAME, RESULTS }
+
+    interface Listener {
+        default void stateChanged(State state) { }
+
+        /** Fired before the turn moves on; {@code selected} is -1 when the time ran out. */
+        default void answered(Player player, Question question, int selected, boolean correct) { }
+
+        /** Fired once the turn has passed to {@code player}, who is to answer {@code question}. */
+        default void turnStarted(Player player, Question question) { }
+    }
+
+    private final List<Question> questions;
+    private final QuestionSampler sampler;
+    private final QuestionStats stats;
+    private final List<Player> players = new ArrayList<>();
+    private final List<Player> playersView = Collections.unmodifiableList(players);
+    private List<Player> ranking = List.of();
+    private Listener listener = new Listener() { };
+    private State state = State.MENU;
+    private int numPlayers;
+    private int currentPlayer;
+    private int questionsPerPlayer;
+    private GameJournal journal;
+    private int gameId;
+    // Set while resume() replays journaled answers, which must not be journaled or counted again
+    private boolean replaying;
+
+    public QuizEngine(List<Question> questions, Random random) {
+        this(questions, random, null);
+    }
+
+    /** {@code stats} may be shared with other engines on the same bank, or null for uniform draws. */
+    public QuizEngine(List<Question> questions, Random random, QuestionStats stats) {
+        this.questions = questions;
+        this.sampler = new QuestionSampler(questions.size(), random);
+        this.stats = stats;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Journals every game from now on; null stops journaling. */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    public State getState() { return state; }
+    public List<Player> getPlayers() { return playersView; }
+    public int getNumPlayers() { return numPlayers; }
+    public List<Question> getQuestions() { return questions; }
+
+    /** Players by descending score, ranked once when the game ends; empty before that. */
+    public List<Player> getRanking() { return ranking; }
+
+    public Player getCurrentPlayer() {
+        return state == State.GAME ? players.get(currentPlayer) : null;
+    }
+
+    public Question getCurrentQuestion() {
+        Player player = getCurrentPlayer();
+        if (player == null) {
+            return null;
+        }
+        return questions.get(player.getQuestionIndex(player.getCurrentQuestionIndex()));
+    }
+
+    /**
+     * Follows a bank that grew by appending: new indices become drawable and
+     * {@code retired} ones are never drawn again. Indices already assigned to
+     * players are untouched, so a game in progress carries on.
+     */
+    public void questionsChanged(int[] retired) {
+        sampler.resize(questions.size());
+        if (stats != null) {
+            stats.resize(questions.size());
+        }
+        for (int index : retired) {
+            sampler.retire(index);
+        }
+    }
+
+    /**
+     * Rebuilds a journaled game: same players, same questions, and every
+     * journaled answer replayed under the rules, so scores and turn end up
+     * exactly where the journal stopped (answer times to the microsecond).
+     * A finished game replays to its results. Returns false, back on the
+     * menu, when the game does not fit this bank or its events disagree.
+     */
+    public boolean resume(GameJournal.Game game) {
+        require(State.MENU);
+        if (game.bankSize != questions.size() || game.names.length < MIN_PLAYERS || game.names.length > MAX_PLAYERS
+                || Arrays.asList(game.names).contains(null)) {
+            return false;
+        }
+        players.clear();
+        numPlayers = game.names.length;
+        questionsPerPlayer = game.questionsPerPlayer;
+        sampler.ensureRemaining(numPlayers * questionsPerPlayer);
+        for (int seat = 0; seat < numPlayers; seat++) {
+            Player player = new Player(game.names[seat]);
+            player.setQuestionIndices(Arrays.copyOf(game.assigned[seat], game.assignedCount[seat]), game.assignedCount[seat]);
+            for (int q = 0; q < game.assignedCount[seat]; q++) {
+                sampler.reserve(game.assigned[seat][q]);
+            }
+            players.add(player);
+        }
+        gameId = game.id;
+
+        Listener client = listener;
+        listener = new Listener() { };
+        replaying = true;
+        boolean consistent = true;
+        try {
+            state = State.GAME;
+            if (!hasQuestionLeft(players.get(0)) || !beginTurn(0)) {
+                finish();
+            }
+            for (int a = 0; a < game.answers && consistent; a++) {
+                Player player = getCurrentPlayer();
+                consistent = player != null && currentPlayer == game.answerSeats[a]
+                    && player.getQuestionIndex(player.getCurrentQuestionIndex()) == game.answerQuestions[a];
+                if (consistent) {
+                    answer(game.answerSelected[a], game.answerMicros[a] * 1000L);
+                }
+            }
+        } finally {
+            replaying = false;
+            listener = client;
+        }
+        if (!consistent) {
+            players.clear();
+            ranking = List.of();
+            state = State.MENU;
+            return false;
+        }
+        if (journal != null && state == State.RESULTS && !game.finished) {
+            journal.ended(gameId, true);
+        }
+        listener.stateChanged(state);
+        showTurn();
+        return true;
+    }
+
+    public void start() {
+        require(State.MENU);
+        setState(State.PLAYER_SELECT);
+    }
+
+    public void back() {
+        require(State.PLAYER_SELECT);
+        setState(State.MENU);
+    }
+
+    public void selectPlayers(int count) {
+        require(State.PLAYER_SELECT);
+        if (count < MIN_PLAYERS || count > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Nombre de joueurs invalide: " + count);
+        }
+        numPlayers = count;
+        players.clear();
+        setState(State.NAME_INPUT);
+    }
+
+    public void addPlayer(String name) {
+        require(State.NAME_INPUT);
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nom de joueur vide");
+        }
+        players.add(new Player(name.trim()));
+        if (players.size() == numPlayers) {
+            assignQuestions();
+            beginGame();
+        }
+    }
+
+    /**
+     * Starts a game from the menu with {@code seated}, whose questions were
+     * chosen by the caller rather than drawn from this engine's bank, as a
+     * tournament does to keep each participant from seeing a question twice.
+     * Turns and scoring are those of any other game; every player answers
+     * as many questions as the one with the fewest.
+     */
+    public void startMatch(List<Player> seated) {
+        require(State.MENU);
+        if (seated.size() < MIN_PLAYERS || seated.size() > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Nombre de joueurs invalide: " + seated.size());
+        }
+        players.clear();
+        players.addAll(seated);
+        numPlayers = seated.size();
+        questionsPerPlayer = Integer.MAX_VALUE;
+        for (Player player : players) {
+            questionsPerPlayer = Math.min(questionsPerPlayer, player.getQuestionCount());
+            player.setCurrentQuestionIndex(0);
+        }
+        beginGame();
+    }
+
+    private void beginGame() {
+        if (journal != null) {
+            gameId = journal.started(questions.size(), players, questionsPerPlayer);
+            for (int seat = 0; seat < numPlayers; seat++) {
+                journal.assigned(gameId, seat, players.get(seat).getQuestionIndices(), players.get(seat).getQuestionCount());
+            }
+        }
+        // Every player draws the same count, so if the first has none nobody does
+        if (hasQuestionLeft(players.get(0)) && beginTurn(0)) {
+            setState(State.GAME);
+            showTurn();
+        } else {
+            finish();
+        }
+    }
+
+    /**
+     * Answers the current question with option {@code selected}, or -1 on
+     * timeout, then hands the turn to the next player who still has questions.
+     */
+    public boolean answer(int selected, long answerNanos) {
+        require(State.GAME);
+        Player player = players.get(currentPlayer);
+        Question question = getCurrentQuestion();
+        boolean correct = selected == question.getCorrectAnswer();
+        if (stats != null) {
+            int index = player.getQuestionIndex(player.getCurrentQuestionIndex());
+            double difficulty = stats.getDifficulty(index);
+            double expected = 1 / (1 + Math.exp(logit(difficulty) - player.getSkill()));
+            double step = SKILL_STEP / Math.sqrt(1 + player.getCurrentQuestionIndex());
+            player.setSkill(player.getSkill() + step * ((correct ? 1 : 0) - expected));
+            if (!replaying) {
+                stats.record(index, correct, answerNanos);
+            }
+        }
+        if (journal != null && !replaying) {
+            journal.answered(gameId, currentPlayer, player.getQuestionIndex(player.getCurrentQuestionIndex()), 
+                selected, correct, answerNanos);
+        }
+
+        if (correct) {
+            player.setScore(player.getScore() + POINTS_PER_CORRECT_ANSWER);
+            player.setCorrectAnswers(player.getCorrectAnswers() + 1);
+        }
+        player.setAnswerTimeNanos(player.getAnswerTimeNanos() + answerNanos);
+        player.setCurrentQuestionIndex(player.getCurrentQuestionIndex() + 1);
+        listener.answered(player, question, selected, correct);
+
+        advanceTurn();
+        return correct;
+    }
+
+    /** Abandons whatever is in progress and returns to the menu. */
+    public void quit() {
+        if (journal != null && state == State.GAME) {
+            journal.ended(gameId, false);
+        }
+        ranking = List.of();
+        setState(State.MENU);
+    }
+
+    public void newGame() {
+        require(State.RESULTS);
+        players.clear();
+        ranking = List.of();
+        currentPlayer = 0;
+        setState(State.MENU);
+    }
+
+    private void assignQuestions() {
+        questionsPerPlayer = Math.min(QUESTIONS_PER_PLAYER, sampler.drawable());
+        sampler.ensureRemaining(questionsPerPlayer * players.size());
+        if (stats != null) {
+            for (Player player : players) {
+                player.setQuestionIndices(new int[questionsPerPlayer], 0);
+                player.setCurrentQuestionIndex(0);
+                player.setSkill(0);
+            }
+            return;
+        }
+        // Each player draws separately so nobody shares a question within a game
+        for (Player player : players) {
+            int[] indices = sampler.draw(questionsPerPlayer);
+            player.setQuestionIndices(indices, indices.length);
+            player.setCurrentQuestionIndex(0);
+        }
+    }
+
+    private void advanceTurn() {
+        for (int i = 1; i <= numPlayers; i++) {
+            int next = (currentPlayer + i) % numPlayers;
+            if (hasQuestionLeft(players.get(next))) {
+                if (beginTurn(next)) {
+                    showTurn();
+                    return;
+                }
+                break;
+            }
+        }
+        finish();
+    }
+
+    // Draws the player's next question now when statistics pick it; false if the bank has none left
+    private boolean beginTurn(int player) {
+        currentPlayer = player;
+        Player current = players.get(player);
+        if (stats == null || current.getQuestionCount() > current.getCurrentQuestionIndex()) {
+            return true;
+        }
+        double difficulty = 1 / (1 + Math.exp(-(current.getSkill() - logit(TARGET_SUCCESS))));
+        int index = sampler.draw(stats, difficulty);
+        if (index < 0) {
+            return false;
+        }
+        current.addQuestionIndex(index);
+        if (journal != null) {
+            journal.assigned(gameId, player, new int[] {index}, 1);
+        }
+        return true;
+    }
+
+    private void showTurn() {
+        if (state != State.GAME) {
+            return;
+        }
+        if (journal != null && !replaying) {
+            journal.shown(gameId, currentPlayer);
+        }
+        listener.turnStarted(getCurrentPlayer(), getCurrentQuestion());
+    }
+
+    private static double logit(double p) {
+        return Math.log(p / (1 - p));
+    }
+
+    private void finish() {
+        if (journal != null && !replaying) {
+            journal.ended(gameId, true);
+        }
+        List<Player> sorted = new ArrayList<>(players);
+        sorted.sort((p1, p2) -> Integer.compare(p2.getScore(), p1.getScore()));
+        ranking = Collections.unmodifiableList(sorted);
+        setState(State.RESULTS);
+    }
+
+    private boolean hasQuestionLeft(Player player) {
+        return player.getCurrentQuestionIndex() < questionsPerPlayer;
+    }
+
+    private void require(State expected) {
+        if (state != expected) {
+            throw new IllegalStateException("Action impossible dans l'état " + state + " (attendu: " + expected + ")");
+        }
+    }
+
+    private void setState(State state) {
+        this.state = state;
+        listener.stateChanged(state);
+    }
+}
@@ -0,0 +1,1172 @@
+package com.monprojet;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.json.*;
+
+public class QuizGame {
+    static final int SCREEN_WIDTH = 1024;
+    static final int SCREEN_HEIGHT = 768;
+    private static final int MAX_NAME_LENGTH = 20;
+    private static final int TIMER_REFRESH_HZ = 60;
+    // The time bar turns red once this little time is left
+    private static final int TIME_WARNING_SECONDS = 10;
+    private static final int ADMIN_PAGE_SIZE = 10;
+    private static final int ADMIN_TEXT_LENGTH = 64;
+    private static final int ADMIN_FACETS = 12;
+    private static final long LAUNCH_NANOS = System.nanoTime();
+    private static final boolean TRACE_STARTUP = Boolean.getBoolean("quiz.trace.startup");
+    private static final boolean WATCH_QUESTIONS = Boolean.getBoolean("quiz.watch");
+    private static final boolean COLUMNAR_QUESTIONS = Boolean.getBoolean("quiz.columnar");
+    private static final String SPECTATOR_FEED = System.getProperty("quiz.spectate");
+    static final Rectangle TIME_BAR = new Rectangle(20, 50, SCREEN_WIDTH - 40, 10);
+    // The question and its four options, drawn from a pre-rendered card when one is ready
+    private static final Rectangle CARD = new Rectangle(0, 100, SCREEN_WIDTH, 340);
+    private static final int CARDS_AHEAD = Integer.getInteger("quiz.cards.ahead", 2);
+    
+    // Shared with SpectatorViewer, which shows the same screens
+    static final Color BLACK = new Color(0, 0, 0);
+    static final Color WHITE = new Color(255, 255, 255);
+    static final Color GOLD = new Color(255, 215, 0);
+    static final Color GREEN = new Color(0, 200, 0);
+    static final Color RED = new Color(200, 0, 0);
+    static final Color BLUE = new Color(0, 0, 200);
+    static final Color DARK_BLUE = new Color(0, 0, 50);
+    private static final Color LIGHT_BLUE = new Color(100, 100, 255);
+    
+    static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font QUESTION_FONT = new Font("Arial", Font.BOLD, 36);
+    private static final Font FEEDBACK_FONT = new Font("Arial", Font.BOLD, 24);
+    private static final Font OPTION_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 20);
+    static final Font INFO_FONT = new Font("Arial", Font.PLAIN, 20);
+    private static final Font HELP_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font METRICS_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    
+    private JFrame frame;
+    private String currentScreen;
+    private JComponent metricsOverlay;
+    private JPanel mainPanel;
+    private final Map<String, JComponent> screens = new HashMap<>();
+    private CardLayout cardLayout;
+    private final TextCache textCache = new TextCache();
+    private JComponent feedbackOverlay;
+    private javax.swing.Timer feedbackTimer;
+    private String feedbackMessage = "";
+    private String feedbackDetail = "";
+    private Color feedbackColor = WHITE;
+    
+    private QuizEngine engine;
+    private Leaderboard leaderboard;
+    private GameJournal journal;
+    private SpectatorFeed spectators;
+    private QuestionTimer questionTimer;
+    private QuestionCards questionCards;
+    // The question to answer, its option labels and card key, taken from the bank once per turn rather than per repaint
+    private Question turnQuestion;
+    private String[] turnLabels;
+    private String turnCardKey;
+    private int paintedTimeWidth;
+    private JButton startButton;
+    private int loadingProgress;
+    // Why the last load failed, shown on the menu until "Commencer" retries it
+    private String loadError;
+    private boolean firstFramePainted;
+    
+    private QuestionIndex questionIndex;
+    private QuestionStats questionStats;
+    private String adminQuery = "";
+    private String adminCategory;
+    private int adminPage;
+    private QuestionIndex.Result adminResult;
+    private Integer[] adminFacets = new Integer[0];
+    private long adminSearchNanos;
+    private int adminIndexed = -1;
+    
+    // The window comes up on the menu right away; questions and scores load behind it
+    public QuizGame() {
+        setupGUI();
+        loadInBackground();
+    }
+    
+    // Screens without a window, so benchmarks can paint them into an image
+    QuizGame(QuizEngine engine, Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        createScreens();
+        attachEngine(engine);
+        questionIndex = new QuestionIndex(Runnable::run);
+        questionIndex.add(engine.getQuestions());
+    }
+    
+    private void setupGUI() {
+        frame = new JFrame("Quiz Informatique");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        
+        // Screens scale to the window; this is only the size it opens at
+        createScreens();
+        frame.setGlassPane(feedbackOverlay);
+        mainPanel.setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT));
+        frame.add(mainPanel);
+        frame.pack();
+        if (Metrics.ENABLED) {
+            Metrics.install(() -> currentScreen);
+            createMetricsOverlay();
+        }
+        showScreen("MENU");
+        frame.setVisible(true);
+    }
+    
+    // Only the overlay is built here; each panel is built the first time it is shown
+    private void createScreens() {
+        cardLayout = new CardLayout();
+        mainPanel = new JPanel(cardLayout);
+        createFeedbackOverlay();
+    }
+    
+    private JComponent screen(String name) {
+        JComponent screen = screens.get(name);
+        if (screen != null) {
+            return screen;
+        }
+        switch (name) {
+            case "MENU": createMenuPanel(); break;
+            case "HELP": createHelpPanel(); break;
+            case "PLAYER_SELECT": createPlayerSelectPanel(); break;
+            case "NAME_INPUT": createNameInputPanel(); break;
+            case "GAME": createQuestionPanel(); break;
+            case "RESULTS": createResultsPanel(); break;
+            case "LEADERBOARD": createLeaderboardPanel(); break;
+            case "ADMIN": createAdminPanel(); break;
+            default: throw new IllegalArgumentException("Écran inconnu: " + name);
+        }
+        return screens.get(name);
+    }
+    
+    private void loadInBackground() {
+        loadError = null;
+        loadingProgress = 0;
+        new SwingWorker<List<Question>, Integer>() {
+            private QuestionFileWatcher watcher;
+            private List<Question> bank;
+            
+            @Override
+            protected List<Question> doInBackground() {
+                Path json = Paths.get("questions.json");
+                Metrics.QuestionLoadEvent load = Metrics.ENABLED ? Metrics.questionLoadStarted() : null;
+                List<Question> loaded = loadQuestions(json, Paths.get("questions.bin"), 
+                    percent -> publish(percent));
+                if (Metrics.ENABLED) {
+                    Metrics.questionLoadFinished(load, loaded.size());
+                }
+                bank = loaded;
+                leaderboard = openLeaderboard();
+                journal = openJournal();
+                if (SPECTATOR_FEED != null) {
+                    spectators = openSpectatorFeed(Paths.get(SPECTATOR_FEED));
+                }
+                if (!WATCH_QUESTIONS) {
+                    return loaded;
+                }
+                try {
+                    watcher = new QuestionFileWatcher(json, loaded, defaultQuestions().size());
+                } catch (IOException e) {
+                    System.err.println("questions.json: rechargement à chaud désactivé - " + e.getMessage());
+                    return loaded;
+                }
+                return new LiveQuestionBank(loaded);
+            }
+            
+            @Override
+            protected void process(List<Integer> chunks) {
+                loadingProgress = chunks.get(chunks.size() - 1);
+                screen("MENU").repaint();
+            }
+            
+            @Override
+            protected void done() {
+                List<Question> loaded;
+                try {
+                    loaded = get();
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    System.err.println("Chargement des questions impossible - " + cause);
+                    loadError = String.valueOf(cause.getMessage());
+                    startButton.setText("1. Réessayer");
+                    startButton.setEnabled(true);
+                    screen("MENU").repaint();
+                    return;
+                }
+                questionStats = new QuestionStats(loaded.size());
+                attachEngine(new QuizEngine(loaded, new Random(), questionStats));
+                if (journal != null) {
+                    engine.setJournal(journal);
+                    resumeInterrupted();
+                }
+                // Indexed behind the menu; the admin screen searches whatever is indexed so far
+                questionIndex = new QuestionIndex();
+                questionIndex.add(bank);
+                if (watcher != null) {
+                    // Applied on the EDT between events, so play never pauses and held indices stay valid
+                    watcher.start(change -> SwingUtilities.invokeLater(() -> {
+                        ((LiveQuestionBank) loaded).append(change.added);
+                        engine.questionsChanged(change.retired);
+                        questionIndex.add(change.added);
+                        questionIndex.retire(change.retired);
+                    }));
+                }
+                startButton.setEnabled(true);
+                screen("MENU").repaint();
+                traceStartup("partie possible");
+            }
+        }.execute();
+    }
+    
+    private void traceStartup(String milestone) {
+        if (TRACE_STARTUP) {
+            System.out.println("Démarrage: " + milestone + " après " 
+                + (System.nanoTime() - LAUNCH_NANOS) / 1_000_000 + " ms");
+        }
+    }
+    
+    private void attachEngine(QuizEngine engine) {
+        this.engine = engine;
+        engine.setListener(new QuizEngine.Listener() {
+            @Override
+            public void stateChanged(QuizEngine.State state) {
+                if (state != QuizEngine.State.GAME && questionTimer != null) {
+                    questionTimer.stop();
+                }
+                if (state == QuizEngine.State.RESULTS) {
+                    recordScores();
+                }
+                if (state == QuizEngine.State.GAME) {
+                    prefetchCards();
+                }
+                if (Metrics.ENABLED) {
+                    if (state == QuizEngine.State.GAME) {
+                        Metrics.gameStarted();
+                    } else if (state == QuizEngine.State.RESULTS) {
+                        Metrics.gameFinished(engine.getPlayers().size());
+                    }
+                }
+                showScreen(state.name());
+                publishSpectators();
+            }
+            
+            @Override
+            public void answered(Player player, Question question, int selected, boolean correct) {
+                prefetchCards();
+                publishSpectators();
+                if (correct) {
+                    showFeedback("Bonne réponse! +10 points", "", GREEN);
+                } else if (selected < 0) {
+                    showFeedback("Temps écoulé! La bonne réponse était: ", 
+                        question.getOptions().get(question.getCorrectAnswer()), RED);
+                } else {
+                    showFeedback("Mauvaise réponse! La bonne réponse était: ", 
+                        question.getOptions().get(question.getCorrectAnswer()), RED);
+                }
+            }
+            
+            @Override
+            public void turnStarted(Player player, Question question) {
+                turnQuestion = question;
+                turnLabels = new String[question.getOptions().size()];
+                for (int i = 0; i < turnLabels.length; i++) {
+                    turnLabels[i] = (i+1) + ". " + question.getOptions().get(i);
+                }
+                turnCardKey = QuestionCards.key(question);
+            }
+        });
+    }
+    
+    private static SpectatorFeed openSpectatorFeed(Path file) {
+        try {
+            return SpectatorFeed.open(file, Integer.getInteger("quiz.spectate.kb", 256) << 10);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(file + ": pas de spectateurs - " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Called on every change the players can see, timer ticks included; only actual changes reach the feed
+    private void publishSpectators() {
+        if (spectators == null) {
+            return;
+        }
+        int timer = questionTimer == null ? 1000 : timeLeft();
+        try {
+            spectators.publish(engine.getState(), engine.getPlayers(), engine.getCurrentPlayer(),
+                engine.getCurrentQuestion(), timer);
+        } catch (IllegalArgumentException e) {
+            // A question too long for the ring: better no spectators than a game stuck on it
+            System.err.println(SPECTATOR_FEED + ": spectateurs arrêtés - " + e.getMessage());
+            spectators = null;
+        }
+    }
+    
+    static List<Question> loadQuestions() {
+        return loadQuestions(Paths.get("questions.json"), Paths.get("questions.bin"));
+    }
+    
+    static List<Question> loadQuestions(Path json, Path bank) {
+        return loadQuestions(json, bank, percent -> { });
+    }
+    
+    // Shared with QuizServer: the default questions, replaced by the binary bank when one can be built or opened,
+    // or with -Dquiz.columnar=true by the defaults and questions.json packed in the heap.
+    // Progress is reported in percent of questions.json read.
+    static List<Question> loadQuestions(Path json, Path bank, IntConsumer progress) {
+        List<Question> questions = defaultQuestions();
+        
+        try {
+            if (COLUMNAR_QUESTIONS) {
+                if (!Files.exists(json)) {
+                    return ColumnarQuestionBank.copyOf(questions);
+                }
+                return readQuestions(questions, json, progress, ColumnarQuestionBank::build);
+            }
+            if (Files.exists(json) && (!Files.exists(bank)
+                    || Files.getLastModifiedTime(bank).compareTo(Files.getLastModifiedTime(json)) < 0)) {
+                readQuestions(questions, json, progress, source -> {
+                    MappedQuestionBank.compile(source, bank);
+                    return null;
+                });
+            }
+            if (Files.exists(bank)) {
+                questions = MappedQuestionBank.open(bank);
+            }
+        } catch (IOException e) {
+            System.err.println("questions.bin: banque inutilisable - " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("questions.json: banque inutilisable - " + e.getMessage());
+        }
+        return questions;
+    }
+    
+    private static List<Question> defaultQuestions() {
+        List<Question> questions = new ArrayList<>();
+        questions.add(new Question("Quel langage a inspiré C++?", 
+            Arrays.asList("C", "Java", "Python", "Assembly"), 0));
+        questions.add(new Question("Commande Linux pour lister les fichiers?", 
+            Arrays.asList("dir", "ls", "list", "show"), 1));
+        questions.add(new Question("Gestionnaire de paquets Python?", 
+            Arrays.asList("pip", "npm", "apt", "yum"), 0));
+        return questions;
+    }
+    
+    private interface QuestionSink<T> {
+        T drain(Supplier<Question> source) throws IOException;
+    }
+    
+    // Feeds the default questions followed by questions.json to the sink
+    private static <T> T readQuestions(List<Question> questions, Path json, IntConsumer progress, 
+            QuestionSink<T> sink) throws IOException {
+        long size = Math.max(1, Files.size(json));
+        InputStream in = new FilterInputStream(Files.newInputStream(json)) {
+            private long read;
+            private int reported = -1;
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    read += n;
+                    int percent = (int) (100 * read / size);
+                    if (percent != reported) {
+                        reported = percent;
+                        progress.accept(percent);
+                    }
+                }
+                return n;
+            }
+        };
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()))) {
+            QuestionLoader loader = new QuestionLoader(reader, (reason, record) ->
+                System.err.println("questions.json: entrée #" + record + " ignorée (" + reason + ")"));
+            Iterator<Question> defaults = questions.iterator();
+            return sink.drain(() -> {
+                if (defaults.hasNext()) {
+                    return defaults.next();
+                }
+                try {
+                    return loader.next();
+                } catch (JSONException e) {
+                    System.err.println("questions.json: chargement interrompu - " + e.getMessage());
+                    return null;
+                }
+            });
+        }
+    }
+    
+    private static Leaderboard openLeaderboard() {
+        try {
+            Leaderboard leaderboard = Leaderboard.open(Paths.get("scores.log"), Paths.get("scores.idx"));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    leaderboard.close();
+                } catch (IOException e) {
+                    System.err.println("scores.log: fermeture impossible - " + e.getMessage());
+                }
+            }));
+            return leaderboard;
+        } catch (IOException e) {
+            System.err.println("scores.log: classement indisponible - " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private static GameJournal openJournal() {
+        try {
+            GameJournal journal = GameJournal.open(Paths.get("games.journal"), Paths.get("games.idx"));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("games.journal: fermeture impossible - " + e.getMessage());
+                }
+            }));
+            return journal;
+        } catch (IOException e) {
+            System.err.println("games.journal: parties non enregistrées - " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Picks up the last game cut short by a crash or a closed window; older ones are written off
+    private void resumeInterrupted() {
+        List<GameJournal.Game> interrupted = journal.getInterrupted();
+        for (int i = 0; i < interrupted.size(); i++) {
+            GameJournal.Game game = interrupted.get(i);
+            if (i < interrupted.size() - 1 || !engine.resume(game)) {
+                journal.ended(game.getId(), false);
+            }
+        }
+        if (engine.getState() == QuizEngine.State.GAME) {
+            showFeedback("Partie interrompue reprise", "", GOLD);
+        }
+    }
+    
+    private void recordScores() {
+        if (leaderboard == null) {
+            return;
+        }
+        try {
+            leaderboard.record(engine.getRanking());
+        } catch (IOException e) {
+            System.err.println("scores.log: partie non enregistrée - " + e.getMessage());
+        }
+    }
+    
+    // Panel creation methods
+    private void createMenuPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "QUIZ INFORMATIQUE", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 100);
+            }
+            
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                if (loadError != null) {
+                    drawCenteredString(g2d, "Chargement impossible: " + loadError, HELP_FONT, RED, SCREEN_WIDTH/2, 580);
+                } else if (engine == null) {
+                    drawCenteredString(g2d, "Chargement des questions... " + loadingProgress + "%", 
+                        HELP_FONT, WHITE, SCREEN_WIDTH/2, 580);
+                }
+                if (!firstFramePainted) {
+                    firstFramePainted = true;
+                    traceStartup("première image");
+                }
+            }
+        };
+        
+        // "Commencer" waits for the question bank
+        JButton startBtn = createButton("1. Commencer", SCREEN_WIDTH/2 - 150, 200, 300, 50);
+        startBtn.setEnabled(engine != null);
+        startBtn.addActionListener(e -> {
+            if (engine == null) {
+                // Only reachable after a failed load: try again from scratch
+                startBtn.setText("1. Commencer");
+                startBtn.setEnabled(false);
+                loadInBackground();
+                panel.repaint();
+            } else {
+                engine.start();
+            }
+        });
+        startButton = startBtn;
+        
+        JButton helpBtn = createButton("2. Aide", SCREEN_WIDTH/2 - 150, 270, 300, 50);
+        helpBtn.addActionListener(e -> {
+            showScreen("HELP");
+        });
+        
+        JButton leaderboardBtn = createButton("3. Classement", SCREEN_WIDTH/2 - 150, 340, 300, 50);
+        leaderboardBtn.addActionListener(e -> showScreen("LEADERBOARD"));
+        
+        JButton adminBtn = createButton("4. Administration", SCREEN_WIDTH/2 - 150, 410, 300, 50);
+        adminBtn.addActionListener(e -> showScreen("ADMIN"));
+        
+        JButton quitBtn = createButton("5. Quitter", SCREEN_WIDTH/2 - 150, 480, 300, 50);
+        quitBtn.setBackground(RED);
+        quitBtn.addActionListener(e -> System.exit(0));
+        
+        panel.add(startBtn);
+        panel.add(helpBtn);
+        panel.add(leaderboardBtn);
+        panel.add(adminBtn);
+        panel.add(quitBtn);
+        
+        addScreen(panel, "MENU");
+    }
+    
+    private void createHelpPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "AIDE", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 50);
+                
+                String[] lines = {
+                    "Comment jouer:",
+                    "- 2-4 joueurs",
+                    "- Répondez aux questions",
+                    "- Bonne réponse: +10 points",
+                    "- Utilisez 1-4 pour répondre",
+                    "- Échap: Retour au menu"
+                };
+                
+                for (int i = 0; i < lines.length; i++) {
+                    drawString(g2d, lines[i], HELP_FONT, WHITE, 100, 120 + i * 30);
+                }
+            }
+        };
+        
+        JButton backBtn = createButton("Retour", SCREEN_WIDTH/2 - 150, 400, 300, 50);
+        backBtn.addActionListener(e -> {
+            showCurrentScreen();
+        });
+        panel.add(backBtn);
+        
+        panel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                showCurrentScreen();
+            }
+        });
+        
+        addScreen(panel, "HELP");
+    }
+    
+    private void createPlayerSelectPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "Nombre de joueurs", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 50);
+            }
+        };
+        
+        for (int i = QuizEngine.MIN_PLAYERS; i <= QuizEngine.MAX_PLAYERS; i++) {
+            JButton btn = createButton(i + " Joueurs", SCREEN_WIDTH/2 - 150, 100 + i * 60, 300, 50);
+            final int num = i;
+            btn.addActionListener(e -> engine.selectPlayers(num));
+            panel.add(btn);
+        }
+        
+        JButton backBtn = createButton("Retour", SCREEN_WIDTH/2 - 150, 400, 300, 50);
+        backBtn.setBackground(RED);
+        backBtn.addActionListener(e -> engine.back());
+        panel.add(backBtn);
+        
+        addScreen(panel, "PLAYER_SELECT");
+    }
+    
+    private void createNameInputPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, false) {
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                String prompt = "Joueur " + (engine.getPlayers().size() + 1) + " - Entrez votre nom:";
+                drawCenteredString(g2d, prompt, 
+                    OPTION_FONT, 
+                    WHITE, SCREEN_WIDTH/2, 150);
+            }
+        };
+        
+        JTextField nameField = new JTextField();
+        nameField.setBounds(SCREEN_WIDTH/2 - 150, 200, 300, 40);
+        nameField.setFont(INFO_FONT);
+        nameField.addActionListener(e -> {
+            if (!nameField.getText().trim().isEmpty()) {
+                engine.addPlayer(nameField.getText());
+                nameField.setText("");
+                panel.repaint();
+            }
+        });
+        
+        panel.add(nameField);
+        
+        addScreen(panel, "NAME_INPUT");
+    }
+    
+    private void createQuestionPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, BLACK, false) {
+            // Labels are rebuilt only when the turn or score changes, so a repaint allocates nothing
+            private Player shownPlayer;
+            private int shownScore;
+            private String scoreLabel;
+            // Card geometry for the panel size and device it was computed for
+            private QuestionCards.Geometry geometry;
+            private int geometryWidth;
+            private int geometryHeight;
+            private GraphicsConfiguration geometryDevice;
+            
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                Player player = engine.getCurrentPlayer();
+                if (player == null || turnQuestion == null) {
+                    return;
+                }
+                
+                if (player != shownPlayer || player.getScore() != shownScore) {
+                    shownPlayer = player;
+                    shownScore = player.getScore();
+                    scoreLabel = player.getName() + " - Score: " + shownScore;
+                }
+                
+                // The countdown starts once the question is actually on screen, not under the feedback overlay
+                if (!questionTimer.isRunning() && !feedbackOverlay.isVisible()) {
+                    questionTimer.start();
+                    publishSpectators();
+                }
+                
+                // Draw timer
+                paintedTimeWidth = timeBarWidth();
+                g2d.setColor(timeBarColor(timeLeft()));
+                g2d.fillRect(TIME_BAR.x, TIME_BAR.y, paintedTimeWidth, TIME_BAR.height);
+                
+                // Timer ticks only repaint the bar, so skip the text entirely
+                if (isPaintWithin(TIME_BAR)) {
+                    return;
+                }
+                
+                // Draw player info
+                drawString(g2d, scoreLabel, INFO_FONT, WHITE, 20, 30);
+                
+                // A resized window needs cards of another size; until they are ready, draw the text
+                GraphicsConfiguration device = g2d.getDeviceConfiguration();
+                if (geometry == null || getWidth() != geometryWidth || getHeight() != geometryHeight
+                        || device != geometryDevice) {
+                    geometry = new QuestionCards.Geometry(this, CARD, device);
+                    geometryWidth = getWidth();
+                    geometryHeight = getHeight();
+                    geometryDevice = device;
+                    if (!geometry.equals(questionCards.getGeometry())) {
+                        questionCards.setGeometry(geometry);
+                        prefetchCards();
+                    }
+                }
+                BufferedImage card = questionCards.get(turnCardKey);
+                if (card != null) {
+                    drawImage(g2d, card, CARD);
+                } else {
+                    paintQuestion(g2d, textCache, turnQuestion.getQuestion(), turnLabels);
+                }
+            }
+        };
+        panel.setFocusable(true);
+        panel.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    hideFeedback();
+                    engine.quit();
+                    return;
+                }
+                
+                // Ignore keys until the question has been painted
+                if (e.getKeyCode() >= KeyEvent.VK_1 && e.getKeyCode() <= KeyEvent.VK_4 && questionTimer.isRunning()) {
+                    if (Metrics.ENABLED) {
+                        Metrics.answerKeyPressed();
+                    }
+                    engine.answer(e.getKeyCode() - KeyEvent.VK_1, questionTimer.stop());
+                }
+            }
+        });
+        
+        String cardsDir = System.getProperty("quiz.cards.dir");
+        questionCards = new QuestionCards((g2d, cache, question) -> {
+            String[] labels = new String[question.getOptions().size()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = (i+1) + ". " + question.getOptions().get(i);
+            }
+            paintQuestion(g2d, cache, question.getQuestion(), labels);
+        }, BLACK, Long.getLong("quiz.cards.mb", 64) << 20, cardsDir == null ? null : Paths.get(cardsDir));
+        
+        questionTimer = new QuestionTimer(QuizEngine.QUESTION_TIME_LIMIT, 
+            Integer.getInteger("quiz.timer.hz", TIMER_REFRESH_HZ), 
+            () -> {
+                if (timeBarWidth() != paintedTimeWidth) {
+                    panel.repaint(panel.toPanel(TIME_BAR));
+                }
+                publishSpectators();
+            }, 
+            () -> engine.answer(-1, questionTimer.getLimitNanos()));
+        
+        addScreen(panel, "GAME");
+    }
+    
+    // Shared by the game screen and the card renderer, so a card looks exactly like the text it replaces
+    static void paintQuestion(Graphics2D g2d, TextCache cache, String question, String[] optionLabels) {
+        drawCenteredString(cache, g2d, question, 
+            QUESTION_FONT, 
+            WHITE, SCREEN_WIDTH/2, 150);
+        for (int i = 0; i < optionLabels.length; i++) {
+            drawCenteredString(cache, g2d, optionLabels[i], 
+                OPTION_FONT, 
+                WHITE, SCREEN_WIDTH/2, 220 + i * 60);
+        }
+    }
+    
+    // The next questions of every player, rendered while the current one is answered
+    private void prefetchCards() {
+        if (questionCards == null) {
+            return;
+        }
+        for (Player player : engine.getPlayers()) {
+            int end = Math.min(player.getQuestionCount(), player.getCurrentQuestionIndex() + CARDS_AHEAD);
+            for (int q = player.getCurrentQuestionIndex(); q < end; q++) {
+                questionCards.prefetch(engine.getQuestions().get(player.getQuestionIndex(q)));
+            }
+        }
+    }
+    
+    // Time left in thousandths of the limit, as spectators receive it
+    private int timeLeft() {
+        return (int) (1000 * questionTimer.remainingNanos() / questionTimer.getLimitNanos());
+    }
+    
+    // Shared with SpectatorViewer, so both bars turn red at the same moment
+    static Color timeBarColor(int timeLeft) {
+        return timeLeft * QuizEngine.QUESTION_TIME_LIMIT > TIME_WARNING_SECONDS * 1000 ? GREEN : RED;
+    }
+    
+    private int timeBarWidth() {
+        return (int) (TIME_BAR.width * questionTimer.remainingNanos() / questionTimer.getLimitNanos());
+    }
+    
+    private void createResultsPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "Résultats Finaux", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 50);
+            }
+            
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                // The engine ranks the players once at the end of the game, so a repaint never sorts
+                List<Player> players = engine.getRanking();
+                int maxScore = players.isEmpty() ? 0 : players.get(0).getScore();
+                
+                int yPos = 120;
+                for (int i = 0; i < players.size(); i++) {
+                    Player player = players.get(i);
+                    int scoreWidth = maxScore > 0 ? (SCREEN_WIDTH - 200) * player.getScore() / maxScore : 0;
+                    
+                    g2d.setColor(BLUE);
+                    g2d.fillRect(100, yPos + 20, scoreWidth, 30);
+                    
+                    String playerText = (i+1) + ". " + player.getName() + ": " + player.getScore() + " pts";
+                    drawString(g2d, playerText, INFO_FONT, 
+                        player.getScore() == maxScore ? GOLD : WHITE, 110, yPos + 40);
+                    
+                    yPos += 70;
+                }
+            }
+        };
+        
+        JButton restartBtn = createButton("Nouvelle partie", SCREEN_WIDTH/2 - 150, 500, 300, 50);
+        restartBtn.addActionListener(e -> {
+            engine.newGame();
+        });
+        panel.add(restartBtn);
+        
+        panel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                engine.newGame();
+            }
+        });
+        
+        addScreen(panel, "RESULTS");
+    }
+    
+    private void createLeaderboardPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "Classement", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 50);
+            }
+            
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                if (engine == null) {
+                    drawCenteredString(g2d, "Chargement du classement...", INFO_FONT, WHITE, SCREEN_WIDTH/2, 150);
+                    return;
+                }
+                if (leaderboard == null) {
+                    drawCenteredString(g2d, "Classement indisponible", INFO_FONT, WHITE, SCREEN_WIDTH/2, 150);
+                    return;
+                }
+                
+                // Kept sorted by the leaderboard as games are recorded
+                List<Leaderboard.Entry> top = leaderboard.getTop();
+                if (top.isEmpty()) {
+                    drawCenteredString(g2d, "Aucune partie enregistrée", INFO_FONT, WHITE, SCREEN_WIDTH/2, 150);
+                }
+                for (int i = 0; i < top.size(); i++) {
+                    Leaderboard.Entry entry = top.get(i);
+                    String entryText = (i+1) + ". " + entry.getName() + ": " + entry.getBestScore() + " pts ("
+                        + entry.getGames() + (entry.getGames() > 1 ? " parties)" : " partie)");
+                    drawString(g2d, entryText, INFO_FONT, i == 0 ? GOLD : WHITE, 110, 120 + i * 40);
+                }
+                drawCenteredString(g2d, leaderboard.getRecordedGames() + " parties jouées", 
+                    HELP_FONT, WHITE, SCREEN_WIDTH/2, 560);
+            }
+        };
+        
+        JButton backBtn = createButton("Retour", SCREEN_WIDTH/2 - 150, 600, 300, 50);
+        backBtn.addActionListener(e -> {
+            showCurrentScreen();
+        });
+        panel.add(backBtn);
+        
+        addScreen(panel, "LEADERBOARD");
+    }
+    
+    private void createAdminPanel() {
+        ScreenPanel panel = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, DARK_BLUE, true) {
+            @Override
+            protected void paintStatic(Graphics2D g2d) {
+                drawCenteredString(g2d, "Administration", 
+                    TITLE_FONT, 
+                    GOLD, SCREEN_WIDTH/2, 50);
+            }
+            
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                if (adminResult == null) {
+                    drawCenteredString(g2d, "Chargement des questions...", INFO_FONT, WHITE, SCREEN_WIDTH/2, 300);
+                    return;
+                }
+                
+                // Matches, two lines each
+                List<Question> questions = engine.getQuestions();
+                for (int i = 0; i < adminResult.ids.length; i++) {
+                    int id = adminResult.ids[i];
+                    Question question = questions.get(id);
+                    int y = 175 + i * 45;
+                    drawString(g2d, shorten("#" + id + " " + question.getQuestion()), HELP_FONT, WHITE, 40, y);
+                    String detail = question.getCategory() + " - réponse: " 
+                        + question.getOptions().get(question.getCorrectAnswer());
+                    int attempts = questionStats == null ? 0 : questionStats.getAttempts(id);
+                    if (attempts > 0) {
+                        detail += " - réussite " + 100 * questionStats.getCorrectAnswers(id) / attempts 
+                            + "% sur " + attempts + " (" + questionStats.getMeanAnswerNanos(id) / 1_000_000_000 + " s)";
+                    }
+                    drawString(g2d, shorten(detail), HELP_FONT, LIGHT_BLUE, 60, y + 20);
+                }
+                
+                // Category facets, counted over the matches; a click filters on one
+                drawString(g2d, "Catégories", INFO_FONT, GOLD, 720, 175);
+                String more = adminResult.complete ? "" : "+";
+                drawString(g2d, "Toutes (" + adminResult.count + more + ")", HELP_FONT, 
+                    adminCategory == null ? GOLD : WHITE, 720, 205);
+                for (int i = 0; i < adminFacets.length; i++) {
+                    int c = adminFacets[i];
+                    String name = adminResult.categories[c];
+                    drawString(g2d, name + " (" + adminResult.categoryCounts[c] + more + ")", HELP_FONT, 
+                        name.equals(adminCategory) ? GOLD : WHITE, 720, 233 + i * 28);
+                }
+                
+                String status;
+                if (adminResult.count == 0) {
+                    status = "Aucune question trouvée";
+                } else {
+                    int first = adminPage * ADMIN_PAGE_SIZE + 1;
+                    status = "Questions " + first + "-" + (first + adminResult.ids.length - 1) + " sur " 
+                        + (adminResult.complete ? "" : "plus de ") + adminResult.count;
+                }
+                status += " (" + adminSearchNanos / 1000 + " µs)";
+                if (questionIndex.getIndexed() < questionIndex.getQueued()) {
+                    status += " - indexation " + 100L * questionIndex.getIndexed() / questionIndex.getQueued() + "%";
+                }
+                drawString(g2d, status, HELP_FONT, WHITE, 40, 640);
+            }
+        };
+        
+        JTextField searchField = new JTextField();
+        searchField.setBounds(40, 90, 640, 40);
+        searchField.setFont(INFO_FONT);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchChanged(); }
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchChanged(); }
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchChanged(); }
+            
+            private void searchChanged() {
+                adminQuery = searchField.getText();
+                adminPage = 0;
+                runAdminSearch();
+            }
+        });
+        searchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    showCurrentScreen();
+                }
+            }
+        });
+        panel.add(searchField);
+        
+        panel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Point click = panel.toLogical(e.getPoint());
+                if (adminResult == null || click.x < 720) {
+                    return;
+                }
+                int line = (click.y - 185) / 28;
+                if (click.y >= 185 && line <= adminFacets.length) {
+                    adminCategory = line == 0 ? null : adminResult.categories[adminFacets[line - 1]];
+                    adminPage = 0;
+                    runAdminSearch();
+                }
+            }
+        });
+        
+        JButton previousBtn = createButton("Précédent", 40, 670, 200, 50);
+        previousBtn.addActionListener(e -> {
+            if (adminPage > 0) {
+                adminPage--;
+                runAdminSearch();
+            }
+        });
+        panel.add(previousBtn);
+        
+        JButton nextBtn = createButton("Suivant", 260, 670, 200, 50);
+        nextBtn.addActionListener(e -> {
+            if (adminResult != null && (adminPage + 1) * ADMIN_PAGE_SIZE < adminResult.count) {
+                adminPage++;
+                runAdminSearch();
+            }
+        });
+        panel.add(nextBtn);
+        
+        JButton backBtn = createButton("Retour", SCREEN_WIDTH - 340, 670, 300, 50);
+        backBtn.setBackground(RED);
+        backBtn.addActionListener(e -> showCurrentScreen());
+        panel.add(backBtn);
+        
+        // Catches up while the bank is being indexed or a reload added questions
+        new javax.swing.Timer(250, e -> {
+            if (panel.isShowing() && questionIndex != null && questionIndex.getIndexed() != adminIndexed) {
+                runAdminSearch();
+            }
+        }).start();
+        
+        addScreen(panel, "ADMIN");
+        runAdminSearch();
+    }
+    
+    private void runAdminSearch() {
+        if (questionIndex == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        adminIndexed = questionIndex.getIndexed();
+        adminResult = questionIndex.search(adminQuery, adminCategory, 
+            adminPage * ADMIN_PAGE_SIZE, ADMIN_PAGE_SIZE);
+        adminSearchNanos = System.nanoTime() - start;
+        
+        // Largest categories first, sorted once per search rather than per repaint
+        int[] counts = adminResult.categoryCounts;
+        List<Integer> facets = new ArrayList<>();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0 || adminResult.categories[c].equals(adminCategory)) {
+                facets.add(c);
+            }
+        }
+        facets.sort((a, b) -> Integer.compare(counts[b], counts[a]));
+        adminFacets = facets.subList(0, Math.min(ADMIN_FACETS, facets.size())).toArray(new Integer[0]);
+        screen("ADMIN").repaint();
+    }
+    
+    private static String shorten(String text) {
+        return text.length() <= ADMIN_TEXT_LENGTH ? text : text.substring(0, ADMIN_TEXT_LENGTH - 3) + "...";
+    }
+    
+    // One overlay and one timer serve every answer; showing feedback only swaps the text
+    private void createFeedbackOverlay() {
+        feedbackOverlay = new ScreenPanel(SCREEN_WIDTH, SCREEN_HEIGHT, BLACK, false) {
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                // Message and detail are laid out separately so no combined string is built per answer
+                TextCache.Layout message = textCache.layout(g2d, feedbackMessage, FEEDBACK_FONT);
+                TextCache.Layout detail = textCache.layout(g2d, feedbackDetail, FEEDBACK_FONT);
+                float x = SCREEN_WIDTH/2 - (message.width + detail.width) / 2;
+                float y = SCREEN_HEIGHT/2 - message.height / 2 + message.ascent;
+                g2d.setColor(feedbackColor);
+                g2d.drawGlyphVector(message.glyphs, x, y);
+                g2d.drawGlyphVector(detail.glyphs, x + message.width, y);
+                if (Metrics.ENABLED) {
+                    Metrics.feedbackPainted();
+                }
+            }
+        };
+        screens.put("FEEDBACK", feedbackOverlay);
+        
+        feedbackTimer = new javax.swing.Timer(2000, e -> hideFeedback());
+        feedbackTimer.setRepeats(false);
+    }
+    
+    // Metrics summary over whatever screen is up, toggled with F3; refreshed while visible
+    private void createMetricsOverlay() {
+        metricsOverlay = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setColor(new Color(0, 0, 0, 200));
+                g2d.fillRect(0, 0, getWidth(), getHeight());
+                List<String> lines = Metrics.summary();
+                for (int i = 0; i < lines.size(); i++) {
+                    drawString(g2d, lines.get(i), METRICS_FONT, WHITE, 10, 20 + i * 18);
+                }
+            }
+        };
+        metricsOverlay.setBounds(0, 0, SCREEN_WIDTH, 200);
+        metricsOverlay.setVisible(false);
+        frame.getLayeredPane().add(metricsOverlay, JLayeredPane.DRAG_LAYER);
+        
+        javax.swing.Timer refresh = new javax.swing.Timer(500, e -> metricsOverlay.repaint());
+        frame.getRootPane().registerKeyboardAction(e -> {
+            metricsOverlay.setVisible(!metricsOverlay.isVisible());
+            if (metricsOverlay.isVisible()) {
+                refresh.start();
+            } else {
+                refresh.stop();
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+    
+    // A second call while the overlay is up replaces the text and restarts the delay
+    private void showFeedback(String message, String detail, Color color) {
+        feedbackMessage = message;
+        feedbackDetail = detail;
+        feedbackColor = color;
+        feedbackOverlay.setVisible(true);
+        feedbackOverlay.repaint();
+        feedbackTimer.restart();
+    }
+    
+    private void hideFeedback() {
+        feedbackTimer.stop();
+        feedbackOverlay.setVisible(false);
+    }
+    
+    private void drawCenteredString(Graphics2D g2d, String text, Font font, Color color, int x, int y) {
+        drawCenteredString(textCache, g2d, text, font, color, x, y);
+    }
+    
+    static void drawCenteredString(TextCache cache, Graphics2D g2d, String text, Font font, Color color, int x, int y) {
+        TextCache.Layout layout = cache.layout(g2d, text, font);
+        g2d.setColor(color);
+        g2d.drawGlyphVector(layout.glyphs, x - layout.width / 2, y - layout.height / 2 + layout.ascent);
+    }
+    
+    private void drawString(Graphics2D g2d, String text, Font font, Color color, int x, int y) {
+        TextCache.Layout layout = textCache.layout(g2d, text, font);
+        g2d.setColor(color);
+        g2d.drawGlyphVector(layout.glyphs, x, y);
+    }
+    
+    private JButton createButton(String text, int x, int y, int width, int height) {
+        JButton button = new JButton(text);
+        button.setBounds(x, y, width, height);
+        button.setBackground(BLUE);
+        button.setForeground(WHITE);
+        button.setFont(BUTTON_FONT);
+        button.setFocusPainted(false);
+        button.setBorder(BorderFactory.createLineBorder(WHITE, 2));
+        button.setBorderPainted(true);
+        
+        button.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                button.setBackground(LIGHT_BLUE);
+            }
+            
+            @Override
+            public void mouseExited(MouseEvent e) {
+                button.setBackground(BLUE);
+            }
+        });
+        
+        return button;
+    }
+    
+    private void addScreen(JComponent screen, String name) {
+        mainPanel.add(screen, name);
+        screens.put(name, screen);
+    }
+    
+    // The feedback overlay is listed under "FEEDBACK"
+    JComponent getScreen(String name) {
+        return screen(name);
+    }
+    
+    QuestionCards getQuestionCards() {
+        return questionCards;
+    }
+    
+    private void showScreen(String screen) {
+        currentScreen = screen;
+        screen(screen);
+        cardLayout.show(mainPanel, screen);
+        if (screen.equals("GAME")) {
+            screens.get("GAME").requestFocusInWindow();
+        }
+    }
+    
+    private void showCurrentScreen() {
+        showScreen(engine == null ? "MENU" : engine.getState().name());
+    }
+    
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new QuizGame());
+    }
+}
@@ -0,0 +1,205 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * Load generator for QuizServer. Opens {@code rooms * players} connections
+ * from a single selector thread, fills every room, answers each question as
+ * soon as it arrives and rejoins until each room has played its games.
+ * Reports throughput and answer-to-acknowledge latency (ANSWER sent until
+ * the matching RESULT arrives).
+ * Usage: QuizLoadClient [host] [port] [rooms] [players] [games per room] [first room id].
+ */
+public class QuizLoadClient {
+    private static final long STALL_NANOS = 10_000_000_000L;
+
+    private final Selector selector;
+    private final Random random = new Random(42);
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+    private long gamesPlayed;
+    private long errors;
+    private int finishedBots;
+
+    private QuizLoadClient() throws IOException {
+        selector = Selector.open();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int players = args.length > 3 ? Integer.parseInt(args[3]) : QuizEngine.MAX_PLAYERS;
+        int games = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int firstRoom = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+        new QuizLoadClient().run(new InetSocketAddress(host, port), rooms, players, games, firstRoom);
+    }
+
+    private void run(InetSocketAddress address, int rooms, int players, int games, int firstRoom) throws IOException {
+        int bots = rooms * players;
+        long start = System.nanoTime();
+        for (int r = 0; r < rooms; r++) {
+            for (int p = 0; p < players; p++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                channel.connect(address);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+                key.attach(new Bot(channel, key, firstRoom + r, players, games, "Bot " + r + "-" + p));
+            }
+        }
+
+        long lastProgress = System.nanoTime();
+        while (finishedBots < bots) {
+            if (selector.select(1000) > 0) {
+                lastProgress = System.nanoTime();
+            } else if (System.nanoTime() - lastProgress > STALL_NANOS) {
+                System.err.println("Aucune activité depuis 10 s, " + (bots - finishedBots) + " bots bloqués");
+                break;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Bot bot = (Bot) key.attachment();
+                try {
+                    if (key.isConnectable() && bot.channel.finishConnect()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                        bot.join();
+                    }
+                    if (key.isValid() && key.isReadable()) {
+                        bot.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        bot.flush();
+                    }
+                } catch (IOException e) {
+                    System.err.println(bot.name + ": " + e.getMessage());
+                    key.cancel();
+                    bot.channel.close();
+                    finishedBots++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        System.out.printf("%d salles x %d joueurs, %d parties en %.2f s (%.0f parties/s, %.0f réponses/s), %d erreurs%n",
+            rooms, players, gamesPlayed, seconds, gamesPlayed / seconds, latencyCount / seconds, errors);
+        System.out.printf("latence réponse→accusé: p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+            percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+            sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1000;
+    }
+
+    private void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    private final class Bot {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final int room;
+        private final int roomSize;
+        private final String name;
+        private final ByteBuffer in = ByteBuffer.allocate(2 + QuizProtocol.MAX_FRAME);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private int gamesLeft;
+        private int seat = -1;
+        private long answerSentAt;
+
+        Bot(SocketChannel channel, SelectionKey key, int room, int roomSize, int games, String name) {
+            this.channel = channel;
+            this.key = key;
+            this.room = room;
+            this.roomSize = roomSize;
+            this.gamesLeft = games;
+            this.name = name;
+        }
+
+        void join() throws IOException {
+            seat = -1;
+            send(QuizProtocol.join(room, roomSize, name));
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("connexion fermée par le serveur");
+            }
+            in.flip();
+            ByteBuffer frame;
+            while ((frame = QuizProtocol.nextFrame(in)) != null) {
+                handle(frame);
+            }
+            in.compact();
+        }
+
+        private void handle(ByteBuffer frame) throws IOException {
+            byte type = frame.get();
+            if (type == QuizProtocol.JOINED) {
+                seat = frame.get();
+            } else if (type == QuizProtocol.QUESTION) {
+                if (frame.get() == seat) {
+                    answerSentAt = System.nanoTime();
+                    send(QuizProtocol.answer(random.nextInt(4)));
+                }
+            } else if (type == QuizProtocol.RESULT) {
+                if (frame.get() == seat) {
+                    recordLatency(System.nanoTime() - answerSentAt);
+                }
+            } else if (type == QuizProtocol.GAME_OVER) {
+                if (seat == 0) {
+                    gamesPlayed++;
+                }
+                nextGame();
+            } else if (type == QuizProtocol.ERROR) {
+                errors++;
+                // A room that was still closing or lost a player: try again
+                nextGame();
+            }
+        }
+
+        private void nextGame() throws IOException {
+            if (--gamesLeft > 0) {
+                join();
+            } else {
+                key.cancel();
+                channel.close();
+                finishedBots++;
+            }
+        }
+
+        void send(ByteBuffer frame) throws IOException {
+            out.add(frame);
+            flush();
+        }
+
+        void flush() throws IOException {
+            while (!out.isEmpty()) {
+                channel.write(out.peek());
+                if (out.peek().hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                out.poll();
+            }
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.monprojet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Wire format shared by QuizServer and its clients. A frame is a big-endian
+ * unsigned short length (type byte plus payload), the type byte, then the
+ * payload. Strings are an unsigned short byte count followed by UTF-8 bytes.
+ */
+final class QuizProtocol {
+    static final int MAX_FRAME = 0xFFFF;
+
+    // Client to server
+    static final byte JOIN = 1;       // int room, byte room size, string name
+    static final byte ANSWER = 2;     // byte option, -1 for no answer
+
+    // Server to client
+    static final byte JOINED = 10;    // byte seat
+    static final byte QUESTION = 11;  // byte seat to answer, string question, byte option count, strings options
+    static final byte RESULT = 12;    // byte seat, byte correct, int score
+    static final byte GAME_OVER = 13; // byte player count, int score per seat
+    static final byte ERROR = 14;     // string message
+
+    private QuizProtocol() { }
+
+    static ByteBuffer join(int room, int size, String name) {
+        byte[] nameBytes = utf8(name);
+        ByteBuffer frame = frame(JOIN, 4 + 1 + 2 + nameBytes.length);
+        frame.putInt(room).put((byte) size);
+        putString(frame, nameBytes);
+        return frame.flip();
+    }
+
+    static ByteBuffer answer(int option) {
+        return frame(ANSWER, 1).put((byte) option).flip();
+    }
+
+    static ByteBuffer joined(int seat) {
+        return frame(JOINED, 1).put((byte) seat).flip();
+    }
+
+    static ByteBuffer question(int seat, Question question) {
+        byte[] text = utf8(question.getQuestion());
+        List<String> options = question.getOptions();
+        byte[][] optionBytes = new byte[options.size()][];
+        int length = 1 + 2 + text.length + 1;
+        for (int i = 0; i < optionBytes.length; i++) {
+            optionBytes[i] = utf8(options.get(i));
+            length += 2 + optionBytes[i].length;
+        }
+        ByteBuffer frame = frame(QUESTION, length);
+        frame.put((byte) seat);
+        putString(frame, text);
+        frame.put((byte) optionBytes.length);
+        for (byte[] option : optionBytes) {
+            putString(frame, option);
+        }
+        return frame.flip();
+    }
+
+    static ByteBuffer result(int seat, boolean correct, int score) {
+        return frame(RESULT, 1 + 1 + 4).put((byte) seat).put((byte) (correct ? 1 : 0)).putInt(score).flip();
+    }
+
+    static ByteBuffer gameOver(List<Player> players) {
+        ByteBuffer frame = frame(GAME_OVER, 1 + 4 * players.size());
+        frame.put((byte) players.size());
+        for (Player player : players) {
+            frame.putInt(player.getScore());
+        }
+        return frame.flip();
+    }
+
+    static ByteBuffer error(String message) {
+        byte[] bytes = utf8(message);
+        ByteBuffer frame = frame(ERROR, 2 + bytes.length);
+        putString(frame, bytes);
+        return frame.flip();
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the next complete frame in {@code buffer} (positioned after its
+     * type byte, limited to its payload), or null if more bytes are needed.
+     * Advances {@code buffer} past the frame.
+     */
+    static ByteBuffer nextFrame(ByteBuffer buffer) {
+        if (buffer.remaining() < 2) {
+            return null;
+        }
+        int length = buffer.getShort(buffer.position()) & 0xFFFF;
+        if (length == 0) {
+            throw new IllegalArgumentException("Trame vide");
+        }
+        if (buffer.remaining() < 2 + length) {
+            return null;
+        }
+        ByteBuffer frame = buffer.slice(buffer.position() + 2, length);
+        buffer.position(buffer.position() + 2 + length);
+        return frame;
+    }
+
+    private static ByteBuffer frame(byte type, int payload) {
+        if (payload + 1 > MAX_FRAME) {
+            throw new IllegalArgumentException("Trame trop longue: " + payload);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(2 + 1 + payload);
+        return frame.putShort((short) (payload + 1)).put(type);
+    }
+
+    static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Texte trop long: " + bytes.length + " octets");
+        }
+        return bytes;
+    }
+
+    static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+}
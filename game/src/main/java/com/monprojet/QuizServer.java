@@ -0,0 +1,380 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many independent quiz rooms over TCP using QuizProtocol. Each room
+ * is a QuizEngine, so scoring and turn order are exactly those of the local
+ * game. Connections are spread over one NIO selector loop per core; a room's
+ * state is guarded by the room itself, so players of the same room may live
+ * on different loops. Usage: QuizServer [port] [loops].
+ */
+public class QuizServer {
+    // A client that stops reading is dropped rather than buffered without limit
+    private static final int MAX_PENDING_FRAMES = 1024;
+    private static final int STATS_PERIOD_SECONDS = 5;
+
+    private final List<Question> questions;
+    // Shared by every room, so each game's answers tune the difficulty of the next ones
+    private final QuestionStats stats;
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "quiz-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+
+    public QuizServer(List<Question> questions) {
+        this.questions = questions;
+        this.stats = new QuestionStats(questions.size());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new QuizServer(QuizGame.loadQuestions()).serve(port, loops);
+    }
+
+    public void serve(int port, int loopCount) throws IOException {
+        Loop[] loops = new Loop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new Loop();
+            Thread thread = new Thread(loops[i], "quiz-loop-" + i);
+            loops[i].thread = thread;
+            thread.start();
+        }
+        scheduler.scheduleAtFixedRate(this::printStats, STATS_PERIOD_SECONDS, STATS_PERIOD_SECONDS, TimeUnit.SECONDS);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), 1024);
+            System.out.println("Serveur de quiz sur le port " + port + " (" + loopCount + " boucles, "
+                + questions.size() + " questions)");
+            for (int next = 0; ; next = (next + 1) % loopCount) {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                connections.incrementAndGet();
+                loops[next].register(channel);
+            }
+        }
+    }
+
+    private void printStats() {
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+        int active = rooms.size();
+        System.out.printf("connexions %d, salles actives %d, parties terminées %d, heap %d Mo, ~%d octets/salle%n",
+            connections.get(), active, gamesFinished.get(), heap >> 20, active == 0 ? 0 : heap / active);
+    }
+
+    /** One selector thread owning a share of the connections. */
+    private final class Loop implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> writeRequests = new ConcurrentLinkedQueue<>();
+        private Thread thread;
+
+        Loop() throws IOException {
+            selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        void requestWrite(Connection connection) {
+            if (Thread.currentThread() == thread) {
+                connection.enableWrite();
+            } else {
+                writeRequests.add(connection);
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = registrations.poll()) != null) {
+                        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                        key.attach(new Connection(channel, key, this));
+                    }
+                    Connection pending;
+                    while ((pending = writeRequests.poll()) != null) {
+                        pending.enableWrite();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            connection.close();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Boucle réseau: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final Loop loop;
+        private final ByteBuffer in = ByteBuffer.allocate(2 + QuizProtocol.MAX_FRAME);
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private volatile Room room;
+        private boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key, Loop loop) {
+            this.channel = channel;
+            this.key = key;
+            this.loop = loop;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            ByteBuffer frame;
+            while ((frame = QuizProtocol.nextFrame(in)) != null) {
+                handle(frame);
+            }
+            in.compact();
+        }
+
+        private void handle(ByteBuffer frame) {
+            byte type = frame.get();
+            if (type == QuizProtocol.JOIN) {
+                int roomId = frame.getInt();
+                int size = frame.get();
+                String name = QuizProtocol.readString(frame);
+                join(roomId, size, name);
+            } else if (type == QuizProtocol.ANSWER) {
+                Room current = room;
+                if (current != null) {
+                    current.answer(this, frame.get());
+                }
+            } else {
+                send(QuizProtocol.error("Type de trame inconnu: " + type));
+            }
+        }
+
+        private void join(int roomId, int size, String name) {
+            if (room != null) {
+                send(QuizProtocol.error("Déjà dans une salle"));
+                return;
+            }
+            if (size < QuizEngine.MIN_PLAYERS || size > QuizEngine.MAX_PLAYERS || name.trim().isEmpty()) {
+                send(QuizProtocol.error("Taille de salle ou nom invalide"));
+                return;
+            }
+            Room target = rooms.compute(roomId, (id, existing) ->
+                existing == null || existing.isClosed() ? new Room(id, size) : existing);
+            if (!target.join(this, name)) {
+                send(QuizProtocol.error("Salle indisponible"));
+            }
+        }
+
+        void send(ByteBuffer frame) {
+            synchronized (out) {
+                if (closed) {
+                    return;
+                }
+                if (out.size() < MAX_PENDING_FRAMES) {
+                    out.add(frame);
+                    frame = null;
+                }
+            }
+            if (frame == null) {
+                loop.requestWrite(this);
+            } else {
+                close();
+            }
+        }
+
+        void enableWrite() {
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void flush() throws IOException {
+            synchronized (out) {
+                while (!out.isEmpty()) {
+                    ByteBuffer frame = out.peek();
+                    channel.write(frame);
+                    if (frame.hasRemaining()) {
+                        return;
+                    }
+                    out.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            synchronized (out) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                key.cancel();
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Already gone
+                }
+            }
+            connections.decrementAndGet();
+            Room current = room;
+            if (current != null) {
+                current.leave(this);
+            }
+        }
+    }
+
+    /** A QuizEngine plus the connections seated at it; every method runs under the room's lock. */
+    private final class Room {
+        private final int id;
+        private final QuizEngine engine;
+        private final Connection[] seats;
+        private int joined;
+        private int turn;
+        private long questionSentAt;
+        private ScheduledFuture<?> timeout;
+        // Read without the room lock from inside rooms.compute, which must not wait on a room
+        private volatile boolean closed;
+
+        Room(int id, int size) {
+            this.id = id;
+            this.engine = new QuizEngine(questions, new Random(), stats);
+            this.seats = new Connection[size];
+            engine.start();
+            engine.selectPlayers(size);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        synchronized boolean join(Connection connection, String name) {
+            if (closed || joined == seats.length) {
+                return false;
+            }
+            connection.room = this;
+            seats[joined] = connection;
+            connection.send(QuizProtocol.joined(joined));
+            joined++;
+            engine.addPlayer(name);
+            if (engine.getState() == QuizEngine.State.GAME) {
+                sendQuestion();
+            } else if (engine.getState() == QuizEngine.State.RESULTS) {
+                finish();
+            }
+            return true;
+        }
+
+        synchronized void answer(Connection connection, int selected) {
+            if (closed || engine.getState() != QuizEngine.State.GAME || seats[currentSeat()] != connection) {
+                return;
+            }
+            answerCurrent(selected);
+        }
+
+        private synchronized void expire(int expectedTurn) {
+            if (!closed && turn == expectedTurn && engine.getState() == QuizEngine.State.GAME) {
+                answerCurrent(-1);
+            }
+        }
+
+        private void answerCurrent(int selected) {
+            timeout.cancel(false);
+            int seat = currentSeat();
+            Player player = engine.getCurrentPlayer();
+            boolean correct = engine.answer(selected, System.nanoTime() - questionSentAt);
+            broadcast(QuizProtocol.result(seat, correct, player.getScore()));
+            if (engine.getState() == QuizEngine.State.GAME) {
+                sendQuestion();
+            } else {
+                finish();
+            }
+        }
+
+        synchronized void leave(Connection connection) {
+            if (closed) {
+                return;
+            }
+            close();
+            for (Connection seat : seats) {
+                if (seat != null && seat != connection) {
+                    seat.send(QuizProtocol.error("Un joueur a quitté la partie"));
+                }
+            }
+        }
+
+        private void sendQuestion() {
+            int seat = currentSeat();
+            broadcast(QuizProtocol.question(seat, engine.getCurrentQuestion()));
+            questionSentAt = System.nanoTime();
+            int expectedTurn = ++turn;
+            timeout = scheduler.schedule(() -> expire(expectedTurn), QuizEngine.QUESTION_TIME_LIMIT, TimeUnit.SECONDS);
+        }
+
+        private void finish() {
+            // Free the room id before anyone hears about it, so players can rejoin at once
+            close();
+            gamesFinished.incrementAndGet();
+            broadcast(QuizProtocol.gameOver(engine.getPlayers()));
+        }
+
+        private void close() {
+            closed = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            rooms.remove(id, this);
+            for (Connection seat : seats) {
+                if (seat != null) {
+                    seat.room = null;
+                }
+            }
+        }
+
+        private int currentSeat() {
+            return engine.getPlayers().indexOf(engine.getCurrentPlayer());
+        }
+
+        // One frame is built per event and every seat gets its own view of it
+        private void broadcast(ByteBuffer frame) {
+            for (Connection seat : seats) {
+                if (seat != null) {
+                    seat.send(frame.duplicate());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Plays simulated games on QuizEngine without a display, one engine per
+ * worker thread. Usage: QuizSimulator [games] [seed] [threads] [bankSize]
+ * [adaptive]. For the same arguments the printed checksum is identical from
+ * run to run, which makes it usable as a regression check on the game rules;
+ * with "adaptive" the workers share answer statistics and draw questions by
+ * difficulty, so the checksum then also depends on thread timing. Every
+ * game is also checked never to hand out the same question twice.
+ */
+public class QuizSimulator {
+    private static final String[] NAMES = {"Joueur 1", "Joueur 2", "Joueur 3", "Joueur 4"};
+
+    public static void main(String[] args) throws Exception {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int bankSize = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        boolean adaptive = args.length > 4 && args[4].equals("adaptive");
+
+        List<Question> bank = generateBank(bankSize, seed);
+        QuestionStats stats = adaptive ? new QuestionStats(bankSize) : null;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            long share = games / threads + (w < games % threads ? 1 : 0);
+            long workerSeed = seed * 1_000_003 + w;
+            results.add(pool.submit(() -> play(bank, stats, share, workerSeed)));
+        }
+
+        long totalScore = 0;
+        long checksum = 0;
+        try {
+            for (Future<long[]> result : results) {
+                long[] worker = result.get();
+                totalScore += worker[0];
+                checksum = checksum * 31 + worker[1];
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d parties, %d threads, %.2f s, %.0f parties/min%n",
+            games, threads, seconds, games / seconds * 60);
+        System.out.printf("score total %d, checksum %016x%n", totalScore, checksum);
+    }
+
+    /** Returns {total score, order-sensitive hash of every game's scores}. */
+    static long[] play(List<Question> bank, QuestionStats stats, long games, long seed) {
+        Random random = new Random(seed);
+        QuizEngine engine = new QuizEngine(bank, new Random(seed ^ 0x5DEECE66DL), stats);
+        long totalScore = 0;
+        long hash = 17;
+        for (long g = 0; g < games; g++) {
+            engine.start();
+            int players = QuizEngine.MIN_PLAYERS + random.nextInt(QuizEngine.MAX_PLAYERS - QuizEngine.MIN_PLAYERS + 1);
+            engine.selectPlayers(players);
+            for (int p = 0; p < players; p++) {
+                engine.addPlayer(NAMES[p]);
+            }
+            while (engine.getState() == QuizEngine.State.GAME) {
+                // -1 stands in for a timeout
+                int selected = random.nextInt(5) - 1;
+                engine.answer(selected, random.nextInt(30_000) * 1_000_000L);
+            }
+            for (Player player : engine.getPlayers()) {
+                totalScore += player.getScore();
+                hash = hash * 31 + player.getScore();
+            }
+            checkDistinct(engine.getPlayers(), bank.size(), g);
+            engine.newGame();
+        }
+        return new long[] {totalScore, hash};
+    }
+
+    // Within a game no question goes to two players, nor twice to one, unless the bank is smaller than the game
+    static void checkDistinct(List<Player> players, int bankSize, long game) {
+        int count = 0;
+        for (Player player : players) {
+            count += player.getQuestionCount();
+        }
+        if (count > bankSize) {
+            return;
+        }
+        int[] asked = new int[count];
+        int n = 0;
+        for (Player player : players) {
+            for (int q = 0; q < player.getQuestionCount(); q++) {
+                asked[n++] = player.getQuestionIndex(q);
+            }
+        }
+        Arrays.sort(asked);
+        for (int i = 1; i < asked.length; i++) {
+            if (asked[i] == asked[i - 1]) {
+                throw new IllegalStateException("Partie " + game + ": question " + asked[i] + " posée deux fois");
+            }
+        }
+    }
+
+    static List<Question> generateBank(int size, long seed) {
+        Random random = new Random(seed);
+        List<Question> bank = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bank.add(new Question("Question " + i,
+                Arrays.asList("A", "B", "C", "D"), random.nextInt(4), "Catégorie " + (i % 8)));
+        }
+        return bank;
+    }
+}
@@ -0,0 +1,233 @@
+package com.monprojet;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.VolatileImage;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+
+/**
+ * Screen designed on a fixed logical canvas and scaled to the panel's size,
+ * proportions kept: the canvas is centred and the margins take the
+ * background colour. Children keep the bounds and font they were added
+ * with as logical values and are placed and given a scaled font on each
+ * layout, so a larger window or a HiDPI display gets a larger screen rather
+ * than a corner of one.
+ *
+ * A cached screen paints what never changes while it is up (background,
+ * titles, fixed text) once, through {@link #paintStatic}, into a
+ * VolatileImage at device resolution; each repaint copies that image and
+ * paints {@link #paintDynamic} over it. The image is validated before every
+ * copy and redrawn when its surface was lost or no longer suits the
+ * display, and released while the screen is hidden. Screens whose static
+ * part is a plain background are not cached: a fill costs less than a copy.
+ */
+class ScreenPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final String LOGICAL_BOUNDS = "ScreenPanel.logicalBounds";
+    private static final String LOGICAL_FONT = "ScreenPanel.logicalFont";
+
+    private final int logicalWidth;
+    private final int logicalHeight;
+    private final Color background;
+    private final boolean cached;
+    private double scale = 1;
+    private int offsetX;
+    private int offsetY;
+    private final Rectangle paintClip = new Rectangle();
+    // Panel bounds computed while painting, which runs on the EDT only
+    private final Rectangle paintBounds = new Rectangle();
+    // Panel space of the paint in progress, for parts drawn pixel for pixel
+    private AffineTransform panelTransform;
+    private VolatileImage layer;
+    private boolean layerPainted;
+
+    ScreenPanel(int logicalWidth, int logicalHeight, Color background, boolean cached) {
+        this.logicalWidth = logicalWidth;
+        this.logicalHeight = logicalHeight;
+        this.background = background;
+        this.cached = cached;
+        setOpaque(true);
+        setBackground(background);
+        setLayout(new LayoutManager() {
+            @Override
+            public void layoutContainer(Container parent) {
+                updateScale();
+                for (Component child : getComponents()) {
+                    if (!(child instanceof JComponent)) {
+                        continue;
+                    }
+                    JComponent component = (JComponent) child;
+                    Rectangle bounds = (Rectangle) component.getClientProperty(LOGICAL_BOUNDS);
+                    component.setBounds(toPanel(bounds));
+                    Font font = (Font) component.getClientProperty(LOGICAL_FONT);
+                    if (font != null) {
+                        component.setFont(font.deriveFont((float) (font.getSize2D() * scale)));
+                    }
+                }
+            }
+
+            @Override
+            public Dimension preferredLayoutSize(Container parent) {
+                return new Dimension(logicalWidth, logicalHeight);
+            }
+
+            @Override
+            public Dimension minimumLayoutSize(Container parent) {
+                return new Dimension(0, 0);
+            }
+
+            @Override
+            public void addLayoutComponent(String name, Component comp) {
+            }
+
+            @Override
+            public void removeLayoutComponent(Component comp) {
+            }
+        });
+    }
+
+    /** Background, titles and anything else fixed while the screen is up, in logical coordinates. */
+    protected void paintStatic(Graphics2D g2d) {
+    }
+
+    /** Everything that changes between repaints, in logical coordinates, over the static part. */
+    protected void paintDynamic(Graphics2D g2d) {
+    }
+
+    // Whatever bounds and font the child has when added are its logical ones
+    @Override
+    protected void addImpl(Component comp, Object constraints, int index) {
+        if (comp instanceof JComponent) {
+            ((JComponent) comp).putClientProperty(LOGICAL_BOUNDS, comp.getBounds());
+            ((JComponent) comp).putClientProperty(LOGICAL_FONT, comp.getFont());
+        }
+        super.addImpl(comp, constraints, index);
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (!visible && layer != null) {
+            layer.flush();
+            layer = null;
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        updateScale();
+        g2d.getClipBounds(paintClip);
+        if (cached) {
+            paintLayer(g2d);
+        } else {
+            g2d.setColor(background);
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+            paintStaticScaled(g2d);
+        }
+        panelTransform = g2d.getTransform();
+        g2d.translate(offsetX, offsetY);
+        g2d.scale(scale, scale);
+        paintDynamic(g2d);
+        g2d.setTransform(panelTransform);
+    }
+
+    private void paintStaticScaled(Graphics2D g2d) {
+        AffineTransform saved = g2d.getTransform();
+        g2d.translate(offsetX, offsetY);
+        g2d.scale(scale, scale);
+        paintStatic(g2d);
+        g2d.setTransform(saved);
+    }
+
+    private void paintLayer(Graphics2D g2d) {
+        GraphicsConfiguration gc = g2d.getDeviceConfiguration();
+        AffineTransform device = gc.getDefaultTransform();
+        int width = (int) Math.ceil(getWidth() * device.getScaleX());
+        int height = (int) Math.ceil(getHeight() * device.getScaleY());
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        do {
+            if (layer == null || layer.getWidth() != width || layer.getHeight() != height) {
+                createLayer(gc, width, height);
+            }
+            int status = layer.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                createLayer(gc, width, height);
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                layerPainted = false;
+            }
+            if (!layerPainted) {
+                Graphics2D layerGraphics = layer.createGraphics();
+                try {
+                    layerGraphics.setColor(background);
+                    layerGraphics.fillRect(0, 0, width, height);
+                    layerGraphics.scale(device.getScaleX(), device.getScaleY());
+                    paintStaticScaled(layerGraphics);
+                } finally {
+                    layerGraphics.dispose();
+                }
+                layerPainted = true;
+            }
+            g2d.drawImage(layer, 0, 0, getWidth(), getHeight(), null);
+        } while (layer.contentsLost());
+    }
+
+    private void createLayer(GraphicsConfiguration gc, int width, int height) {
+        if (layer != null) {
+            layer.flush();
+        }
+        layer = gc.createCompatibleVolatileImage(width, height, Transparency.OPAQUE);
+        layerPainted = false;
+    }
+
+    private void updateScale() {
+        scale = Math.min((double) getWidth() / logicalWidth, (double) getHeight() / logicalHeight);
+        offsetX = (int) Math.round((getWidth() - logicalWidth * scale) / 2);
+        offsetY = (int) Math.round((getHeight() - logicalHeight * scale) / 2);
+    }
+
+    /** Smallest panel rectangle covering {@code logical}, e.g. to repaint a part of the screen. */
+    public Rectangle toPanel(Rectangle logical) {
+        return toPanel(logical, new Rectangle());
+    }
+
+    private Rectangle toPanel(Rectangle logical, Rectangle panel) {
+        int x = (int) Math.floor(offsetX + logical.x * scale);
+        int y = (int) Math.floor(offsetY + logical.y * scale);
+        int right = (int) Math.ceil(offsetX + (logical.x + logical.width) * scale);
+        int bottom = (int) Math.ceil(offsetY + (logical.y + logical.height) * scale);
+        panel.setBounds(x, y, right - x, bottom - y);
+        return panel;
+    }
+
+    /** Maps logical coordinates to panel coordinates, as the last layout or paint left them. */
+    public AffineTransform getLogicalTransform() {
+        return new AffineTransform(scale, 0, 0, scale, offsetX, offsetY);
+    }
+
+    /**
+     * Draws {@code image}, rendered at device resolution over {@code logical},
+     * from within {@link #paintDynamic}: it is placed in panel space so that
+     * its pixels land one for one on the screen's.
+     */
+    public void drawImage(Graphics2D g2d, Image image, Rectangle logical) {
+        AffineTransform logicalTransform = g2d.getTransform();
+        g2d.setTransform(panelTransform);
+        Rectangle bounds = toPanel(logical, paintBounds);
+        g2d.drawImage(image, bounds.x, bounds.y, bounds.width, bounds.height, null);
+        g2d.setTransform(logicalTransform);
+    }
+
+    /** Logical position of a panel point, such as a mouse click. */
+    public Point toLogical(Point panel) {
+        return new Point((int) Math.floor((panel.x - offsetX) / scale), (int) Math.floor((panel.y - offsetY) / scale));
+    }
+
+    /** Whether the paint in progress only covers {@code logical}, as when just an animated part was repainted. */
+    public boolean isPaintWithin(Rectangle logical) {
+        return toPanel(logical, paintBounds).contains(paintClip);
+    }
+}
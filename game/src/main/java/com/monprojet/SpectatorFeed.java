@@ -0,0 +1,436 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * What spectators see of the local game (screen, players and scores, the
+ * question on screen, time left) published into a memory-mapped ring file.
+ * Any number of viewer processes map the same file read-only and follow it
+ * at their own pace: the game writes each change once, whatever the number
+ * of viewers, and never waits for or even knows about them.
+ *
+ * Each frame only carries the fields that changed since the previous one; a
+ * keyframe carrying every field is written every {@link #KEYFRAME_INTERVAL}
+ * frames, and its position kept in the header, so a viewer that starts late
+ * or falls a whole ring behind starts again from the latest one. Viewers
+ * detect being overtaken without any lock: the writer announces the end of
+ * the frame it is about to write before writing it, and a reader that finds
+ * the announced end more than a ring past the frame it just copied discards
+ * the copy.
+ *
+ * File layout (big-endian, frames aligned on 8 bytes):
+ * <pre>
+ * int  magic "QSP1"
+ * int  ring capacity, in bytes
+ * long head: end of the last published frame, in bytes written since the file was opened
+ * long reserved: end of the frame being written
+ * long position of the last keyframe, -1 before the first
+ * ring: frames of int length (padded), int fields, long sequence,
+ *       long publish time (System.nanoTime), then one block per field in bit order;
+ *       a PADDING frame fills the end of the ring when the next frame does not fit
+ * </pre>
+ * Strings are encoded as in QuizProtocol.
+ */
+class SpectatorFeed {
+    private static final int MAGIC = 0x51535031;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEAD_AT = 8;
+    private static final int RESERVED_AT = 16;
+    private static final int KEYFRAME_AT = 24;
+    private static final int FRAME_HEADER = 24;
+    static final int KEYFRAME_INTERVAL = 64;
+
+    static final int STATE = 1;     // byte state
+    static final int PLAYERS = 2;   // byte count, strings names
+    static final int SCORES = 4;    // byte count, then byte seat and int score per changed seat
+    static final int CURRENT = 8;   // byte seat of the player to answer, -1 outside a game
+    static final int QUESTION = 16; // string question, byte option count, strings options
+    static final int TIMER = 32;    // short time left, in thousandths of the limit
+    private static final int ALL = STATE | PLAYERS | SCORES | CURRENT | QUESTION | TIMER;
+    private static final int KEY = 1 << 30;
+    private static final int PADDING = 1 << 31;
+
+    // Plain ByteBuffer accesses may tear or be reordered; these give the counters their atomic,
+    // ordered reads and writes
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer ring;
+    private final int capacity;
+    private ByteBuffer frame = ByteBuffer.allocate(4096);
+    private long head;
+    private long keyframe;
+    private long sequence;
+    private int sinceKeyframe = KEYFRAME_INTERVAL;
+    private long published;
+
+    // Last published values, to work out what changed
+    private QuizEngine.State state;
+    private String[] names = new String[0];
+    private int[] scores = new int[0];
+    private int current = -1;
+    private String question;
+    private List<String> options = List.of();
+    private int timer = -1;
+
+    private SpectatorFeed(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.ring = buffer.slice(HEADER_SIZE, capacity);
+    }
+
+    /** Creates or resets {@code file} with a ring of {@code capacity} bytes, rounded down to a multiple of 8. */
+    public static SpectatorFeed open(Path file, int capacity) throws IOException {
+        capacity &= ~7;
+        if (capacity < 4096) {
+            throw new IllegalArgumentException("Anneau trop petit: " + capacity + " octets");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Reset in place, never shrunk: viewers of a previous game may still map it, and see head go back
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+            buffer.putInt(0, MAGIC).putInt(4, capacity);
+            LONGS.setRelease(buffer, KEYFRAME_AT, -1L);
+            LONGS.setRelease(buffer, RESERVED_AT, 0L);
+            LONGS.setRelease(buffer, HEAD_AT, 0L);
+            return new SpectatorFeed(buffer, capacity);
+        }
+    }
+
+    /**
+     * Publishes the game as it stands, writing a frame only if something
+     * changed. {@code current} and {@code question} are null outside a game;
+     * {@code timer} is the time left in thousandths of the limit. Called
+     * from a single thread.
+     */
+    public void publish(QuizEngine.State state, List<Player> players, Player current, Question question, int timer) {
+        int fields = 0;
+        if (state != this.state) {
+            fields |= STATE;
+        }
+        boolean samePlayers = players.size() == names.length;
+        for (int i = 0; samePlayers && i < names.length; i++) {
+            samePlayers = players.get(i).getName().equals(names[i]);
+        }
+        if (!samePlayers) {
+            fields |= PLAYERS | SCORES;
+        }
+        for (int i = 0; (fields & SCORES) == 0 && i < scores.length; i++) {
+            if (players.get(i).getScore() != scores[i]) {
+                fields |= SCORES;
+            }
+        }
+        int seat = current == null ? -1 : players.indexOf(current);
+        if (seat != this.current) {
+            fields |= CURRENT;
+        }
+        String text = question == null ? null : question.getQuestion();
+        List<String> questionOptions = question == null ? List.of() : question.getOptions();
+        if (!Objects.equals(text, this.question) || !questionOptions.equals(options)) {
+            fields |= QUESTION;
+        }
+        if (timer != this.timer) {
+            fields |= TIMER;
+        }
+        if (fields == 0) {
+            return;
+        }
+        // Keyframes stay close together in bytes too, so the latest one is always whole in the ring
+        if (sinceKeyframe >= KEYFRAME_INTERVAL || head - keyframe >= capacity / 4) {
+            fields = ALL | KEY;
+        }
+
+        // Scores compare against the old values, so they are encoded before the rest is recorded
+        begin(fields);
+        if ((fields & STATE) != 0) {
+            ensure(1).put((byte) state.ordinal());
+        }
+        if ((fields & PLAYERS) != 0) {
+            names = new String[players.size()];
+            ensure(1).put((byte) names.length);
+            for (int i = 0; i < names.length; i++) {
+                names[i] = players.get(i).getName();
+                putString(QuizProtocol.utf8(names[i]));
+            }
+        }
+        if ((fields & SCORES) != 0) {
+            boolean all = (fields & (PLAYERS | KEY)) != 0;
+            if (all) {
+                scores = new int[players.size()];
+            }
+            int countAt = ensure(1).position();
+            frame.put((byte) 0);
+            int count = 0;
+            for (int i = 0; i < scores.length; i++) {
+                int score = players.get(i).getScore();
+                if (all || score != scores[i]) {
+                    scores[i] = score;
+                    ensure(5).put((byte) i).putInt(score);
+                    count++;
+                }
+            }
+            frame.put(countAt, (byte) count);
+        }
+        if ((fields & CURRENT) != 0) {
+            ensure(1).put((byte) seat);
+        }
+        if ((fields & QUESTION) != 0) {
+            putString(QuizProtocol.utf8(text == null ? "" : text));
+            ensure(1).put((byte) questionOptions.size());
+            for (String option : questionOptions) {
+                putString(QuizProtocol.utf8(option));
+            }
+        }
+        if ((fields & TIMER) != 0) {
+            ensure(2).putShort((short) timer);
+        }
+        this.state = state;
+        this.current = seat;
+        this.question = text;
+        this.options = questionOptions;
+        this.timer = timer;
+        write(fields);
+    }
+
+    /** Frames published so far. */
+    public long getPublished() {
+        return published;
+    }
+
+    /** Bytes written to the ring so far, padding included. */
+    public long getBytes() {
+        return head;
+    }
+
+    private void begin(int fields) {
+        frame.clear();
+        frame.putInt(0).putInt(fields).putLong(sequence).putLong(0);
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (frame.remaining() < bytes) {
+            frame = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + bytes)).put(frame.flip());
+        }
+        return frame;
+    }
+
+    private void putString(byte[] bytes) {
+        QuizProtocol.putString(ensure(2 + bytes.length), bytes);
+    }
+
+    private void write(int fields) {
+        int length = (frame.position() + 7) & ~7;
+        if (length > capacity / 8) {
+            throw new IllegalArgumentException("Trame trop longue: " + length + " octets");
+        }
+        frame.putInt(0, length).putLong(16, System.nanoTime());
+        long position = head;
+        int offset = (int) (position % capacity);
+        int padding = offset + length > capacity ? capacity - offset : 0;
+        LONGS.setRelease(buffer, RESERVED_AT, position + padding + length);
+        // Readers must see the reservation before any byte it covers changes
+        VarHandle.storeStoreFence();
+        if (padding > 0) {
+            ring.putInt(offset, padding).putInt(offset + 4, PADDING);
+            position += padding;
+            offset = 0;
+        }
+        ring.put(offset, frame, 0, frame.position());
+        if ((fields & KEY) != 0) {
+            keyframe = position;
+            LONGS.setRelease(buffer, KEYFRAME_AT, position);
+            sinceKeyframe = 0;
+        }
+        head = position + length;
+        LONGS.setRelease(buffer, HEAD_AT, head);
+        sequence++;
+        sinceKeyframe++;
+        published++;
+    }
+
+    /** The game as a viewer last decoded it. */
+    static final class View {
+        private QuizEngine.State state = QuizEngine.State.MENU;
+        private String[] names = new String[0];
+        private int[] scores = new int[0];
+        private int current = -1;
+        private String question;
+        private String[] options = new String[0];
+        private int timer = 1000;
+        private long sequence = -1;
+        private long publishedNanos;
+
+        public QuizEngine.State getState() { return state; }
+        public int getPlayerCount() { return names.length; }
+        public String getName(int seat) { return names[seat]; }
+        public int getScore(int seat) { return scores[seat]; }
+        /** Seat of the player to answer, -1 outside a game. */
+        public int getCurrent() { return current; }
+        public String getQuestion() { return question; }
+        public String[] getOptions() { return options; }
+        /** Time left, in thousandths of the limit. */
+        public int getTimer() { return timer; }
+        public long getSequence() { return sequence; }
+        /** When the last applied frame was published, on the publisher's System.nanoTime clock. */
+        public long getPublishedNanos() { return publishedNanos; }
+
+        private void apply(int fields, ByteBuffer in) {
+            if ((fields & STATE) != 0) {
+                state = QuizEngine.State.values()[in.get()];
+            }
+            if ((fields & PLAYERS) != 0) {
+                names = new String[in.get()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = QuizProtocol.readString(in);
+                }
+                scores = new int[names.length];
+            }
+            if ((fields & SCORES) != 0) {
+                for (int n = in.get(); n > 0; n--) {
+                    int seat = in.get();
+                    scores[seat] = in.getInt();
+                }
+            }
+            if ((fields & CURRENT) != 0) {
+                current = in.get();
+            }
+            if ((fields & QUESTION) != 0) {
+                String text = QuizProtocol.readString(in);
+                options = new String[in.get()];
+                for (int i = 0; i < options.length; i++) {
+                    options[i] = QuizProtocol.readString(in);
+                }
+                question = text.isEmpty() && options.length == 0 ? null : text;
+            }
+            if ((fields & TIMER) != 0) {
+                timer = in.getShort();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return state + " " + Arrays.toString(names) + " " + Arrays.toString(scores) + " " + current + " "
+                + question + " " + Arrays.toString(options) + " " + timer;
+        }
+    }
+
+    /**
+     * Follows a feed file, read-only. Each reader maps the file itself, as a
+     * separate process would; one thread per reader.
+     */
+    static final class Reader {
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer ring;
+        private final int capacity;
+        private ByteBuffer copy = ByteBuffer.allocate(4096);
+        private long tail = -1;
+        private long resyncs = -1;
+
+        private Reader(MappedByteBuffer buffer, int capacity) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.ring = buffer.slice(HEADER_SIZE, capacity);
+        }
+
+        public static Reader open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException(file + " n'est pas un flux de spectateurs");
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int capacity = buffer.getInt(4);
+                if (buffer.getInt(0) != MAGIC || capacity <= 0 || HEADER_SIZE + (long) capacity > channel.size()) {
+                    throw new IOException(file + " n'est pas un flux de spectateurs");
+                }
+                return new Reader(buffer, capacity);
+            }
+        }
+
+        /**
+         * Applies the next published frame to {@code view}; false when there
+         * is none yet. A reader that fell too far behind, or finds the file
+         * reset, jumps to the latest keyframe and goes on from there.
+         */
+        public boolean poll(View view) {
+            while (true) {
+                long head = (long) LONGS.getAcquire(buffer, HEAD_AT);
+                if (tail < 0 || head < tail || head - tail > capacity) {
+                    if (!resync()) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (tail == head) {
+                    return false;
+                }
+                int offset = (int) (tail % capacity);
+                int length = ring.getInt(offset);
+                boolean framed = length >= 8 && (length & 7) == 0 && length <= capacity - offset;
+                if (framed) {
+                    if (copy.capacity() < length) {
+                        copy = ByteBuffer.allocate(Math.max(copy.capacity() * 2, length));
+                    }
+                    ring.get(offset, copy.array(), 0, length);
+                }
+                // The copy is only good if by the time it ended the writer had neither reserved its bytes
+                // nor reset the file
+                VarHandle.loadLoadFence();
+                if (!framed || (long) LONGS.getAcquire(buffer, RESERVED_AT) - capacity > tail
+                        || (long) LONGS.getAcquire(buffer, HEAD_AT) < tail) {
+                    if (!resync()) {
+                        return false;
+                    }
+                    continue;
+                }
+                copy.clear().limit(length);
+                int fields = copy.getInt(4);
+                if (fields == PADDING) {
+                    tail += length;
+                    continue;
+                }
+                long sequence = copy.getLong(8);
+                if ((fields & KEY) == 0 && sequence != view.sequence + 1) {
+                    // Only a keyframe may follow a jump
+                    if (!resync()) {
+                        return false;
+                    }
+                    continue;
+                }
+                tail += length;
+                view.apply(fields, copy.position(FRAME_HEADER));
+                view.sequence = sequence;
+                view.publishedNanos = copy.getLong(16);
+                return true;
+            }
+        }
+
+        /** Times this reader had to skip to a keyframe after falling behind. */
+        public long getResyncs() {
+            return Math.max(0, resyncs);
+        }
+
+        private boolean resync() {
+            long keyframe = (long) LONGS.getAcquire(buffer, KEYFRAME_AT);
+            if (keyframe < 0) {
+                tail = -1;
+                return false;
+            }
+            if (keyframe == tail) {
+                // Already there: the keyframe itself was overwritten or is not one yet, so wait for the next
+                return false;
+            }
+            tail = keyframe;
+            resyncs++;
+            return true;
+        }
+    }
+}
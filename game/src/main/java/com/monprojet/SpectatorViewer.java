@@ -0,0 +1,139 @@
+package com.monprojet;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Read-only window on a game started with -Dquiz.spectate=file: the
+ * question, the time left and the scores as the players see them, read from
+ * the feed file alone. Any number can run beside the game without it doing
+ * any more work; a viewer started before the game waits for it.
+ * Usage: SpectatorViewer [file] (spectateurs.feed by default).
+ */
+public class SpectatorViewer {
+    private static final int REFRESH_HZ = 60;
+
+    private final Path file;
+    private final SpectatorFeed.View view = new SpectatorFeed.View();
+    private final TextCache textCache = new TextCache();
+    private SpectatorFeed.Reader reader;
+    private String labelledQuestion;
+    private String[] optionLabels;
+
+    private SpectatorViewer(Path file) {
+        this.file = file;
+    }
+
+    public static void main(String[] args) {
+        Path file = Paths.get(args.length > 0 ? args[0] : "spectateurs.feed");
+        SwingUtilities.invokeLater(() -> new SpectatorViewer(file).show());
+    }
+
+    private void show() {
+        JFrame frame = new JFrame("Quiz Informatique - spectateur");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        ScreenPanel panel = new ScreenPanel(QuizGame.SCREEN_WIDTH, QuizGame.SCREEN_HEIGHT, QuizGame.BLACK, false) {
+            @Override
+            protected void paintDynamic(Graphics2D g2d) {
+                paintView(g2d);
+            }
+        };
+        panel.setPreferredSize(new Dimension(QuizGame.SCREEN_WIDTH, QuizGame.SCREEN_HEIGHT));
+        frame.add(panel);
+        frame.pack();
+        frame.setVisible(true);
+        // Polled once a frame: a change is on screen at most one frame after the game published it
+        new javax.swing.Timer(1000 / REFRESH_HZ, e -> {
+            if (poll()) {
+                panel.repaint();
+            }
+        }).start();
+    }
+
+    private boolean poll() {
+        if (reader == null) {
+            try {
+                reader = SpectatorFeed.Reader.open(file);
+            } catch (IOException e) {
+                // No game yet; try again on the next tick
+                return false;
+            }
+        }
+        boolean changed = false;
+        while (reader.poll(view)) {
+            changed = true;
+        }
+        return changed;
+    }
+
+    private void paintView(Graphics2D g2d) {
+        if (view.getState() == QuizEngine.State.GAME && view.getQuestion() != null) {
+            paintGame(g2d);
+        } else if (view.getState() == QuizEngine.State.RESULTS) {
+            paintResults(g2d);
+        } else {
+            String waiting = reader == null ? "En attente du jeu..." : "En attente d'une partie...";
+            QuizGame.drawCenteredString(textCache, g2d, waiting, QuizGame.INFO_FONT, QuizGame.WHITE,
+                QuizGame.SCREEN_WIDTH/2, QuizGame.SCREEN_HEIGHT/2);
+        }
+    }
+
+    private void paintGame(Graphics2D g2d) {
+        g2d.setColor(QuizGame.timeBarColor(view.getTimer()));
+        Rectangle bar = QuizGame.TIME_BAR;
+        g2d.fillRect(bar.x, bar.y, bar.width * view.getTimer() / 1000, bar.height);
+
+        int current = view.getCurrent();
+        if (current >= 0) {
+            drawString(g2d, view.getName(current) + " - Score: " + view.getScore(current), QuizGame.WHITE, 20, 30);
+        }
+        if (!view.getQuestion().equals(labelledQuestion)) {
+            labelledQuestion = view.getQuestion();
+            optionLabels = new String[view.getOptions().length];
+            for (int i = 0; i < optionLabels.length; i++) {
+                optionLabels[i] = (i+1) + ". " + view.getOptions()[i];
+            }
+        }
+        QuizGame.paintQuestion(g2d, textCache, labelledQuestion, optionLabels);
+
+        // Everyone's score below the question, the player to answer in gold
+        for (int i = 0; i < view.getPlayerCount(); i++) {
+            drawString(g2d, view.getName(i) + ": " + view.getScore(i) + " pts",
+                i == current ? QuizGame.GOLD : QuizGame.WHITE, 110, 520 + i * 40);
+        }
+    }
+
+    private void paintResults(Graphics2D g2d) {
+        g2d.setColor(QuizGame.DARK_BLUE);
+        g2d.fillRect(0, 0, QuizGame.SCREEN_WIDTH, QuizGame.SCREEN_HEIGHT);
+        QuizGame.drawCenteredString(textCache, g2d, "Résultats Finaux", QuizGame.TITLE_FONT, QuizGame.GOLD,
+            QuizGame.SCREEN_WIDTH/2, 50);
+
+        Integer[] seats = new Integer[view.getPlayerCount()];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = i;
+        }
+        Arrays.sort(seats, (a, b) -> Integer.compare(view.getScore(b), view.getScore(a)));
+        int maxScore = seats.length == 0 ? 0 : view.getScore(seats[0]);
+        int yPos = 120;
+        for (int i = 0; i < seats.length; i++) {
+            int score = view.getScore(seats[i]);
+            int scoreWidth = maxScore > 0 ? (QuizGame.SCREEN_WIDTH - 200) * score / maxScore : 0;
+            g2d.setColor(QuizGame.BLUE);
+            g2d.fillRect(100, yPos + 20, scoreWidth, 30);
+            drawString(g2d, (i+1) + ". " + view.getName(seats[i]) + ": " + score + " pts",
+                score == maxScore ? QuizGame.GOLD : QuizGame.WHITE, 110, yPos + 40);
+            yPos += 70;
+        }
+    }
+
+    private void drawString(Graphics2D g2d, String text, Color color, int x, int y) {
+        TextCache.Layout layout = textCache.layout(g2d, text, QuizGame.INFO_FONT);
+        g2d.setColor(color);
+        g2d.drawGlyphVector(layout.glyphs, x, y);
+    }
+}
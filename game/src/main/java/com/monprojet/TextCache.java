@@ -0,0 +1,55 @@
+package com.monprojet;
+
+import java.awt.*;
+import java.awt.font.*;
+import java.util.*;
+
+/**
+ * Laid-out text keyed by font and string, so repaints draw cached glyphs
+ * instead of re-measuring and re-shaping every frame. Each font keeps its
+ * most recently used strings only, which keeps a large question bank from
+ * growing the cache without limit.
+ */
+class TextCache {
+    private static final int MAX_ENTRIES_PER_FONT = 256;
+
+    private final Map<Font, Map<String, Layout>> layouts = new HashMap<>();
+
+    static final class Layout {
+        final GlyphVector glyphs;
+        final FontRenderContext frc;
+        final float width;
+        final float ascent;
+        final float height;
+
+        Layout(GlyphVector glyphs, FontRenderContext frc, LineMetrics metrics) {
+            this.glyphs = glyphs;
+            this.frc = frc;
+            this.width = (float) glyphs.getLogicalBounds().getWidth();
+            this.ascent = metrics.getAscent();
+            this.height = metrics.getHeight();
+        }
+    }
+
+    /** Returns the layout of {@code text}, shaping it only on a miss or when the render context changed. */
+    public Layout layout(Graphics2D g2d, String text, Font font) {
+        Map<String, Layout> byText = layouts.get(font);
+        if (byText == null) {
+            byText = new LinkedHashMap<String, Layout>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Layout> eldest) {
+                    return size() > MAX_ENTRIES_PER_FONT;
+                }
+            };
+            layouts.put(font, byText);
+        }
+
+        FontRenderContext frc = g2d.getFontRenderContext();
+        Layout layout = byText.get(text);
+        if (layout == null || !layout.frc.equals(frc)) {
+            layout = new Layout(font.createGlyphVector(frc, text), frc, font.getLineMetrics(text, frc));
+            byText.put(text, layout);
+        }
+        return layout;
+    }
+}
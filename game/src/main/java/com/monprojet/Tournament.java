@@ -0,0 +1,328 @@
+package com.monprojet;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Swiss-system tournament for any number of participants. Each round groups
+ * them by standing into matches of up to {@link QuizEngine#MAX_PLAYERS}, so
+ * players meet others with the same record, and plays every match as a
+ * QuizEngine game. Matches run on a ForkJoinPool as a recursively split
+ * range, which lets idle workers steal matches from busy ones.
+ *
+ * A match's questions are drawn with a QuestionSampler against everything
+ * its participants saw in earlier rounds: nobody gets a question twice in
+ * the tournament and, as in any game, no two players of a match share one.
+ * Players earn place points in each match (MAX_PLAYERS - 1 for the best
+ * score, one less per place; between equal scores the faster player places
+ * higher), and the standings rank by points, then total score.
+ *
+ * Matches are seeded from the tournament seed, the round and the match's
+ * position, so results do not depend on thread count or scheduling.
+ * Usage: Tournament [participants] [seed] [threads] [bankSize] plays a
+ * simulated tournament (default 100000 42 all-cores 10000).
+ */
+class Tournament {
+    // Matches below which a task plays its range itself rather than splitting it
+    private static final int MATCHES_PER_TASK = 32;
+    private static final int MAX_PARTICIPANTS = 1 << 24;
+    // rank() packs points above scores above participants; each must fit its bits
+    private static final long MAX_SCORE = 1 << 24;
+    private static final long MAX_POINTS = 1 << 15;
+
+    /** Plays the current turn on {@code engine}, which is {@code participant}'s, by calling answer() once. */
+    interface Contestant {
+        void takeTurn(int participant, QuizEngine engine, Random random);
+    }
+
+    private final List<Question> bank;
+    private final String[] names;
+    private final int rounds;
+    private final long seed;
+    private final AtomicIntegerArray points;
+    private final int[] scores;
+    // Participant p's questions start at seen[p * rounds * QUESTIONS_PER_PLAYER], one batch per round played
+    private final int[] seen;
+    // Participants per point total, moved as each match ends, so a rank is known mid-round without sorting
+    private final AtomicIntegerArray atPoints;
+    private final AtomicLong matchesPlayed = new AtomicLong();
+    private volatile int[] standings;
+    private int round;
+
+    public Tournament(List<Question> bank, String[] names, int rounds, long seed) {
+        if (names.length < QuizEngine.MIN_PLAYERS || names.length >= MAX_PARTICIPANTS) {
+            throw new IllegalArgumentException("Nombre de participants invalide: " + names.length);
+        }
+        // Enough for a player's past questions plus those of the rest of the match
+        long needed = (long) (rounds + QuizEngine.MAX_PLAYERS - 1) * QuizEngine.QUESTIONS_PER_PLAYER;
+        if (bank.size() < needed) {
+            throw new IllegalArgumentException("Banque trop petite pour " + rounds + " tours: " + bank.size()
+                + " questions, il en faut " + needed);
+        }
+        if ((long) rounds * QuizEngine.QUESTIONS_PER_PLAYER * QuizEngine.POINTS_PER_CORRECT_ANSWER >= MAX_SCORE
+                || (long) rounds * (QuizEngine.MAX_PLAYERS - 1) >= MAX_POINTS) {
+            throw new IllegalArgumentException("Trop de tours pour le classement: " + rounds);
+        }
+        this.bank = bank;
+        this.names = names;
+        this.rounds = rounds;
+        this.seed = seed;
+        this.points = new AtomicIntegerArray(names.length);
+        this.scores = new int[names.length];
+        this.seen = new int[Math.multiplyExact(names.length, rounds * QuizEngine.QUESTIONS_PER_PLAYER)];
+        this.atPoints = new AtomicIntegerArray(rounds * (QuizEngine.MAX_PLAYERS - 1) + 1);
+        atPoints.set(0, names.length);
+
+        // The first round pairs at random
+        int[] order = new int[names.length];
+        Random random = new Random(seed);
+        for (int p = 0; p < order.length; p++) {
+            int r = random.nextInt(p + 1);
+            order[p] = order[r];
+            order[r] = p;
+        }
+        standings = order;
+    }
+
+    /** Rounds needed for about one participant to win every match, plus one. */
+    public static int defaultRounds(int participants) {
+        int rounds = 1;
+        for (long remaining = participants; remaining > 1; remaining = (remaining + QuizEngine.MAX_PLAYERS - 1) / QuizEngine.MAX_PLAYERS) {
+            rounds++;
+        }
+        return rounds;
+    }
+
+    /** Plays the next round on {@code pool} and ranks the participants once all its matches are over. */
+    public void playRound(ForkJoinPool pool, Contestant contestant) {
+        if (isFinished()) {
+            throw new IllegalStateException("Tournoi terminé après " + rounds + " tours");
+        }
+        int[] order = standings;
+        int matches = (order.length + QuizEngine.MAX_PLAYERS - 1) / QuizEngine.MAX_PLAYERS;
+        pool.invoke(new Matches(order, matches, 0, matches, contestant));
+        round++;
+        standings = rank();
+    }
+
+    public boolean isFinished() { return round == rounds; }
+    public int getRound() { return round; }
+    public int getRounds() { return rounds; }
+    public int getParticipants() { return names.length; }
+    public String getName(int participant) { return names[participant]; }
+    public long getMatchesPlayed() { return matchesPlayed.get(); }
+    public int getPoints(int participant) { return points.get(participant); }
+
+    /** Total score over the rounds completed so far. */
+    public int getScore(int participant) { return scores[participant]; }
+
+    /**
+     * 1 + the number of participants with more points, counting every match
+     * finished so far; callable from any thread while a round is played.
+     */
+    public int getRank(int participant) {
+        int rank = 1;
+        for (int p = points.get(participant) + 1; p < atPoints.length(); p++) {
+            rank += atPoints.get(p);
+        }
+        return rank;
+    }
+
+    /** The first {@code count} participants of the standings after the last completed round. */
+    public int[] getLeaders(int count) {
+        int[] order = standings;
+        return Arrays.copyOf(order, Math.min(count, order.length));
+    }
+
+    /** Indices of every question {@code participant} was given, in order. */
+    public int[] getQuestionsSeen(int participant) {
+        int from = participant * rounds * QuizEngine.QUESTIONS_PER_PLAYER;
+        return Arrays.copyOfRange(seen, from, from + round * QuizEngine.QUESTIONS_PER_PLAYER);
+    }
+
+    // Points, then score, then the lower id; one sort of packed keys rather than a comparator over objects
+    private int[] rank() {
+        long[] keys = new long[names.length];
+        for (int p = 0; p < keys.length; p++) {
+            keys[p] = (long) points.get(p) << 48 | (long) scores[p] << 24 | (MAX_PARTICIPANTS - 1 - p);
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = MAX_PARTICIPANTS - 1 - (int) (keys[keys.length - 1 - i] & (MAX_PARTICIPANTS - 1));
+        }
+        return order;
+    }
+
+    private final class Matches extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] order;
+        private final int matches;
+        private final int from;
+        private final int to;
+        private final Contestant contestant;
+
+        Matches(int[] order, int matches, int from, int to, Contestant contestant) {
+            this.order = order;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+            this.contestant = contestant;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MATCHES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Matches(order, matches, from, middle, contestant),
+                    new Matches(order, matches, middle, to, contestant));
+                return;
+            }
+            // One engine and sampler per task; each match reseeds the shared random
+            Random random = new Random();
+            QuestionSampler sampler = new QuestionSampler(bank.size(), random);
+            QuizEngine engine = new QuizEngine(bank, random);
+            for (int m = from; m < to; m++) {
+                random.setSeed(seed ^ ((long) round << 32 | m));
+                play(m, sampler, engine, random);
+            }
+        }
+
+        // Sizes differ by at most one, so no match is left with a single player
+        private void play(int m, QuestionSampler sampler, QuizEngine engine, Random random) {
+            int base = order.length / matches;
+            int extra = order.length % matches;
+            int first = m * base + Math.min(m, extra);
+            int size = base + (m < extra ? 1 : 0);
+            int perRound = QuizEngine.QUESTIONS_PER_PLAYER;
+            int[] drawn = new int[size * perRound];
+
+            List<Player> seated = new ArrayList<>(size);
+            for (int s = 0; s < size; s++) {
+                int participant = order[first + s];
+                int history = participant * rounds * perRound;
+                for (int q = 0; q < round * perRound; q++) {
+                    sampler.reserve(seen[history + q]);
+                }
+                int[] questions = sampler.draw(perRound);
+                for (int q = 0; q < round * perRound; q++) {
+                    sampler.release(seen[history + q]);
+                }
+                System.arraycopy(questions, 0, drawn, s * perRound, perRound);
+                // Releasing the history may have freed a question drawn for an earlier seat
+                for (int q = 0; q < (s + 1) * perRound; q++) {
+                    sampler.reserve(drawn[q]);
+                }
+                System.arraycopy(questions, 0, seen, history + round * perRound, perRound);
+                Player player = new Player(names[participant]);
+                player.setQuestionIndices(questions, questions.length);
+                seated.add(player);
+            }
+            for (int question : drawn) {
+                sampler.release(question);
+            }
+
+            engine.startMatch(seated);
+            while (engine.getState() == QuizEngine.State.GAME) {
+                Player current = engine.getCurrentPlayer();
+                int answered = current.getCurrentQuestionIndex();
+                contestant.takeTurn(order[first + seated.indexOf(current)], engine, random);
+                if (engine.getCurrentPlayer() == current && current.getCurrentQuestionIndex() == answered) {
+                    throw new IllegalStateException(current.getName() + " n'a pas répondu à son tour");
+                }
+            }
+
+            for (int s = 0; s < size; s++) {
+                int participant = order[first + s];
+                Player player = seated.get(s);
+                int place = 0;
+                for (Player other : seated) {
+                    if (other.getScore() > player.getScore() || other.getScore() == player.getScore()
+                            && other.getAnswerTimeNanos() < player.getAnswerTimeNanos()) {
+                        place++;
+                    }
+                }
+                int before = points.get(participant);
+                int after = before + QuizEngine.MAX_PLAYERS - 1 - place;
+                points.set(participant, after);
+                atPoints.incrementAndGet(after);
+                atPoints.decrementAndGet(before);
+                scores[participant] += player.getScore();
+            }
+            engine.newGame();
+            matchesPlayed.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) {
+        int participants = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int bankSize = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        String[] names = new String[participants];
+        for (int p = 0; p < participants; p++) {
+            names[p] = "Joueur " + (p + 1);
+        }
+        Tournament tournament = new Tournament(QuizSimulator.generateBank(bankSize, seed), names,
+            defaultRounds(participants), seed);
+        Contestant contestant = simulated(participants, seed);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        while (!tournament.isFinished()) {
+            long roundStart = System.nanoTime();
+            tournament.playRound(pool, contestant);
+            System.out.printf("Tour %d/%d: %.2f s, en tête %s (%d pts)%n", tournament.getRound(), tournament.getRounds(),
+                (System.nanoTime() - roundStart) / 1e9, names[tournament.getLeaders(1)[0]],
+                tournament.getPoints(tournament.getLeaders(1)[0]));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        int[] leaders = tournament.getLeaders(5);
+        for (int i = 0; i < leaders.length; i++) {
+            System.out.printf("%d. %s: %d pts, score %d%n", i + 1, names[leaders[i]],
+                tournament.getPoints(leaders[i]), tournament.getScore(leaders[i]));
+        }
+        long checksum = 17;
+        for (int participant : tournament.getLeaders(participants)) {
+            checksum = checksum * 31 + participant;
+        }
+        System.out.printf("%d participants, %d tours, %d matchs, %d threads, %.2f s, %.0f matchs/s, questions répétées %d%n",
+            participants, tournament.getRounds(), tournament.getMatchesPlayed(), threads, seconds,
+            tournament.getMatchesPlayed() / seconds, repeatedQuestions(tournament));
+        System.out.printf("checksum %016x%n", checksum);
+    }
+
+    /** Participants answer right with a fixed, random ability, otherwise pick at random or let the time run out. */
+    static Contestant simulated(int participants, long seed) {
+        double[] ability = new double[participants];
+        Random random = new Random(seed);
+        for (int p = 0; p < participants; p++) {
+            ability[p] = 0.3 + 0.6 * random.nextDouble();
+        }
+        return (participant, engine, r) -> {
+            Question question = engine.getCurrentQuestion();
+            int selected = r.nextDouble() < ability[participant] ? question.getCorrectAnswer()
+                : r.nextInt(question.getOptions().size() + 1) - 1;
+            engine.answer(selected, r.nextInt(QuizEngine.QUESTION_TIME_LIMIT * 1000) * 1_000_000L);
+        };
+    }
+
+    /** Questions given twice to the same participant, which should never happen. */
+    static long repeatedQuestions(Tournament tournament) {
+        long repeated = 0;
+        for (int p = 0; p < tournament.getParticipants(); p++) {
+            int[] questions = tournament.getQuestionsSeen(p);
+            Arrays.sort(questions);
+            for (int q = 1; q < questions.length; q++) {
+                if (questions[q] == questions[q - 1]) {
+                    repeated++;
+                }
+            }
+        }
+        return repeated;
+    }
+}
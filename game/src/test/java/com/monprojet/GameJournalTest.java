@@ -0,0 +1,125 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void collectsInterruptedGamesWithTheirEvents() throws IOException {
+        Path file = dir.resolve("games.log");
+        Path index = dir.resolve("games.idx");
+        int open;
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            int done = journal.started(500, players("Ana", "Bo"), 3);
+            journal.ended(done, true);
+            open = journal.started(500, players("Chloé", "Dan"), 3);
+            journal.assigned(open, 0, new int[] {4, 8, 15}, 3);
+            journal.assigned(open, 1, new int[] {16, 23, 42}, 3);
+            journal.shown(open, 0);
+            journal.answered(open, 0, 4, 2, true, 1_500_000);
+            journal.shown(open, 1);
+            journal.answered(open, 1, 16, -1, false, 30_000_000_000L);
+        }
+
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            List<GameJournal.Game> interrupted = journal.getInterrupted();
+            assertEquals(1, interrupted.size());
+            GameJournal.Game game = interrupted.get(0);
+            assertEquals(open, game.id);
+            assertEquals(500, game.bankSize);
+            assertArrayEquals(new String[] {"Chloé", "Dan"}, game.names);
+            assertArrayEquals(new int[] {4, 8, 15}, Arrays.copyOf(game.assigned[0], game.assignedCount[0]));
+            assertArrayEquals(new int[] {16, 23, 42}, Arrays.copyOf(game.assigned[1], game.assignedCount[1]));
+            assertEquals(2, game.answers);
+            assertEquals(2, game.answerSelected[0]);
+            assertEquals(1500, game.answerMicros[0]);
+            assertEquals(-1, game.answerSelected[1]);
+            assertTrue(journal.started(500, players("Eve"), 3) > open, "identifiant de partie réutilisé");
+        }
+    }
+
+    @Test
+    void readRebuildsAnEndedGame() throws IOException {
+        Path file = dir.resolve("games.log");
+        int id;
+        try (GameJournal journal = GameJournal.open(file, dir.resolve("games.idx"))) {
+            id = journal.started(100, players("Ana"), 2);
+            journal.assigned(id, 0, new int[] {7, 9}, 2);
+            journal.answered(id, 0, 7, 1, false, 2_000_000);
+            journal.answered(id, 0, 9, 0, true, 3_000_000);
+            journal.ended(id, true);
+        }
+
+        GameJournal.Game game = GameJournal.read(file, id);
+        assertNotNull(game);
+        assertTrue(game.finished);
+        assertEquals(2, game.answers);
+        assertArrayEquals(new int[] {7, 9}, Arrays.copyOf(game.answerQuestions, game.answers));
+        assertNull(GameJournal.read(file, id + 1));
+    }
+
+    @Test
+    void cutsOffATornTail() throws IOException {
+        Path file = dir.resolve("games.log");
+        Path index = dir.resolve("games.idx");
+        int open;
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            open = journal.started(100, players("Ana"), 2);
+            journal.assigned(open, 0, new int[] {1, 2}, 2);
+        }
+        long intact = Files.size(file);
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            assertEquals(1, journal.getInterrupted().size());
+            assertEquals(open, journal.getInterrupted().get(0).id);
+        }
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void ignoresACheckpointWrittenForAnotherJournal() throws IOException, InterruptedException {
+        Path file = dir.resolve("games.log");
+        Path index = dir.resolve("games.idx");
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            for (int i = 0; i < 3; i++) {
+                journal.ended(journal.started(100, players("Ana"), 2), true);
+            }
+        }
+        assertTrue(Files.exists(index), "aucun index écrit à la fermeture");
+
+        // Another journal, longer than the first, takes its place while the old index stays
+        Path other = dir.resolve("other.log");
+        Thread.sleep(5);
+        int open;
+        try (GameJournal journal = GameJournal.open(other, dir.resolve("other.idx"))) {
+            for (int i = 0; i < 5; i++) {
+                journal.ended(journal.started(100, players("Bo"), 2), false);
+            }
+            open = journal.started(100, players("Bo", "Chloé"), 2);
+            journal.assigned(open, 1, new int[] {3, 5}, 2);
+        }
+        Files.move(other, file, StandardCopyOption.REPLACE_EXISTING);
+
+        try (GameJournal journal = GameJournal.open(file, index)) {
+            assertEquals(1, journal.getInterrupted().size());
+            assertEquals(open, journal.getInterrupted().get(0).id);
+        }
+    }
+
+    private static List<Player> players(String... names) {
+        List<Player> players = new ArrayList<>();
+        for (String name : names) {
+            players.add(new Player(name));
+        }
+        return players;
+    }
+}
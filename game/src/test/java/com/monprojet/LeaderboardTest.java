@@ -0,0 +1,112 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void keepsEachPlayersBestGameAndTheTopInOrder() throws IOException {
+        try (Leaderboard leaderboard = open()) {
+            leaderboard.record(List.of(player("Ana", 30, 3), player("Bo", 50, 5)));
+            leaderboard.record(List.of(player("Ana", 70, 7), player("Chloé", 10, 1)));
+            leaderboard.record(List.of(player("Bo", 20, 2)));
+
+            assertEquals(List.of("Ana", "Bo", "Chloé"), names(leaderboard.getTop()));
+            Leaderboard.Entry ana = leaderboard.getBest("Ana");
+            assertEquals(70, ana.getBestScore());
+            assertEquals(7, ana.getBestCorrectAnswers());
+            assertEquals(2, ana.getGames());
+            assertEquals(50, leaderboard.getBest("Bo").getBestScore());
+            assertNull(leaderboard.getBest("Dan"));
+        }
+    }
+
+    @Test
+    void reopensFromTheCheckpointAndFromTheLogAlone() throws IOException {
+        try (Leaderboard leaderboard = open()) {
+            recordGames(leaderboard, "Ana", 20);
+        }
+        assertTrue(Files.exists(dir.resolve("scores.idx")), "aucun index écrit à la fermeture");
+        try (Leaderboard leaderboard = open()) {
+            assertEquals(20, leaderboard.getRecordedGames());
+            recordGames(leaderboard, "Bo", 5);
+        }
+
+        Files.delete(dir.resolve("scores.idx"));
+        try (Leaderboard leaderboard = open()) {
+            assertEquals(25, leaderboard.getRecordedGames());
+            assertEquals(20, leaderboard.getBest("Ana").getGames());
+            assertEquals(5, leaderboard.getBest("Bo").getGames());
+        }
+    }
+
+    @Test
+    void cutsOffATornTail() throws IOException {
+        try (Leaderboard leaderboard = open()) {
+            recordGames(leaderboard, "Ana", 10);
+        }
+        Path log = dir.resolve("scores.log");
+        long intact = Files.size(log);
+        Files.write(log, new byte[] {0, 0, 0, 30, 9, 9, 9, 9, 1}, StandardOpenOption.APPEND);
+
+        try (Leaderboard leaderboard = open()) {
+            assertEquals(10, leaderboard.getRecordedGames());
+        }
+        assertEquals(intact, Files.size(log));
+    }
+
+    // A leftover index covers a position inside the new log, mid-record: replaying from there
+    // would fail and must not cost the new log its records
+    @Test
+    void ignoresACheckpointWrittenForAnotherLog() throws IOException {
+        try (Leaderboard leaderboard = open()) {
+            recordGames(leaderboard, "Ana", 7);
+        }
+        Path other = dir.resolve("other.log");
+        try (Leaderboard leaderboard = Leaderboard.open(other, dir.resolve("other.idx"))) {
+            recordGames(leaderboard, "Bo-le-joueur", 40);
+        }
+        long size = Files.size(other);
+        Files.move(other, dir.resolve("scores.log"), StandardCopyOption.REPLACE_EXISTING);
+
+        try (Leaderboard leaderboard = open()) {
+            assertEquals(40, leaderboard.getRecordedGames());
+            assertNull(leaderboard.getBest("Ana"));
+            assertEquals(40, leaderboard.getBest("Bo-le-joueur").getGames());
+        }
+        assertEquals(size, Files.size(dir.resolve("scores.log")));
+    }
+
+    private Leaderboard open() throws IOException {
+        return Leaderboard.open(dir.resolve("scores.log"), dir.resolve("scores.idx"));
+    }
+
+    private static void recordGames(Leaderboard leaderboard, String name, int games) throws IOException {
+        for (int i = 0; i < games; i++) {
+            leaderboard.record(List.of(player(name, i * 10, i)));
+        }
+    }
+
+    private static Player player(String name, int score, int correctAnswers) {
+        Player player = new Player(name);
+        player.setScore(score);
+        player.setCorrectAnswers(correctAnswers);
+        return player;
+    }
+
+    private static List<String> names(List<Leaderboard.Entry> entries) {
+        List<String> names = new ArrayList<>();
+        for (Leaderboard.Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,87 @@
+package com.monprojet;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionIndexTest {
+
+    @Test
+    void foldsAccentsAndCaseAndMatchesTheLastWordAsAPrefix() {
+        QuestionIndex index = new QuestionIndex(Runnable::run);
+        index.add(List.of(
+            question("Quel protocole gère le Réseau local ?", "Réseaux"),
+            question("Que signifie RAM ?", "Matériel"),
+            question("Le reseau Internet est-il décentralisé ?", "Réseaux")));
+
+        assertArrayEquals(new int[] {0, 2}, index.search("RESEAU", null, 0, 10).ids);
+        assertArrayEquals(new int[] {0, 2}, index.search("rés", null, 0, 10).ids);
+        assertArrayEquals(new int[0], index.search("rés ", null, 0, 10).ids);
+        assertArrayEquals(new int[] {2}, index.search("reseau inter", null, 0, 10).ids);
+        assertArrayEquals(new int[] {1}, index.search("que", "Matériel", 0, 10).ids);
+        assertEquals(0, index.search("ram", "Inconnue", 0, 10).count);
+    }
+
+    @Test
+    void retiredQuestionsLeaveResultsAndCounts() {
+        QuestionIndex index = new QuestionIndex(Runnable::run);
+        index.add(List.of(question("alpha un", "A"), question("alpha deux", "B"), question("alpha trois", "A")));
+        index.retire(new int[] {0});
+
+        QuestionIndex.Result result = index.search("alpha", null, 0, 10);
+        assertArrayEquals(new int[] {1, 2}, result.ids);
+        QuestionIndex.Result browse = index.search("", "A", 0, 10);
+        assertArrayEquals(new int[] {2}, browse.ids);
+        assertEquals(1, browse.count);
+    }
+
+    // Small batches, as hot reloads add them, must index and page exactly like one batch
+    @Test
+    void smallBatchesSearchLikeOneBatch() {
+        List<Question> questions = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < QuestionIndex.SEGMENT_SIZE + 5000; i++) {
+            questions.add(question("mot" + random.nextInt(300) + " texte" + (i % 11), "cat" + (i % 13)));
+        }
+        QuestionIndex whole = new QuestionIndex(Runnable::run);
+        whole.add(questions);
+        QuestionIndex batches = new QuestionIndex(Runnable::run);
+        for (int from = 0; from < questions.size(); ) {
+            int to = Math.min(questions.size(), from + 1 + random.nextInt(40));
+            batches.add(questions.subList(from, to));
+            from = to;
+        }
+
+        assertEquals(questions.size(), batches.getIndexed());
+        for (String query : new String[] {"mot1", "texte3 mot", "", "cat"}) {
+            for (String category : new String[] {null, "cat4"}) {
+                QuestionIndex.Result expected = whole.search(query, category, 70, 50);
+                QuestionIndex.Result actual = batches.search(query, category, 70, 50);
+                assertEquals(expected.count, actual.count, query + " / " + category);
+                assertArrayEquals(expected.ids, actual.ids, query + " / " + category);
+                assertArrayEquals(expected.categoryCounts, actual.categoryCounts, query + " / " + category);
+            }
+        }
+    }
+
+    @Test
+    void keepsCategoriesPastCharRange() {
+        List<Question> questions = new ArrayList<>();
+        int categories = Character.MAX_VALUE + 10;
+        for (int i = 0; i < categories; i++) {
+            questions.add(question("question " + i, "catégorie " + i));
+        }
+        QuestionIndex index = new QuestionIndex(Runnable::run);
+        index.add(questions);
+
+        int last = categories - 1;
+        QuestionIndex.Result result = index.search("question", "catégorie " + last, 0, 10);
+        assertArrayEquals(new int[] {last}, result.ids);
+        assertEquals(1, index.search("", "catégorie 3", 0, 10).count);
+    }
+
+    private static Question question(String text, String category) {
+        return new Question(text, List.of("oui", "non"), 0, category);
+    }
+}
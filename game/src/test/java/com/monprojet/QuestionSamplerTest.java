@@ -0,0 +1,119 @@
+package com.monprojet;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionSamplerTest {
+
+    // Random operations against a plain boolean model: once the order is built, every
+    // markUsed, release, retire and resize must keep its swaps in step with the bitset
+    @Test
+    void matchesModelThroughEveryOperation() {
+        Random random = new Random(1);
+        for (int run = 0; run < 200; run++) {
+            int size = 1 + random.nextInt(300);
+            QuestionSampler sampler = new QuestionSampler(size, new Random(run));
+            boolean[] used = new boolean[size];
+            boolean[] retired = new boolean[size];
+            for (int op = 0; op < 2000; op++) {
+                int choice = random.nextInt(10);
+                if (choice < 5) {
+                    int k = random.nextInt(6);
+                    if (free(used) < Math.min(k, size - count(retired))) {
+                        System.arraycopy(retired, 0, used, 0, size);
+                    }
+                    for (int i : sampler.draw(k)) {
+                        assertFalse(used[i], "index " + i + " tiré deux fois dans un cycle");
+                        used[i] = true;
+                    }
+                } else if (choice == 5) {
+                    int i = random.nextInt(size);
+                    sampler.release(i);
+                    used[i] = retired[i];
+                } else if (choice == 6) {
+                    int i = random.nextInt(size);
+                    sampler.reserve(i);
+                    used[i] = true;
+                } else if (choice == 7 && random.nextInt(10) == 0) {
+                    int i = random.nextInt(size);
+                    sampler.retire(i);
+                    retired[i] = true;
+                    used[i] = true;
+                } else if (choice == 8 && random.nextInt(20) == 0) {
+                    size += random.nextInt(50);
+                    sampler.resize(size);
+                    used = Arrays.copyOf(used, size);
+                    retired = Arrays.copyOf(retired, size);
+                } else if (choice == 9 && random.nextInt(20) == 0) {
+                    sampler.clear();
+                    System.arraycopy(retired, 0, used, 0, size);
+                }
+                for (int i = 0; i < size; i++) {
+                    assertEquals(used[i], sampler.isUsed(i), "index " + i + " après l'opération " + op);
+                }
+                assertEquals(free(used), sampler.remaining());
+                assertEquals(size - count(retired), sampler.drawable());
+            }
+        }
+    }
+
+    @Test
+    void neverDrawsRetiredQuestions() {
+        QuestionSampler sampler = new QuestionSampler(100, new Random(7));
+        for (int i = 0; i < 100; i += 2) {
+            sampler.retire(i);
+        }
+        for (int cycle = 0; cycle < 20; cycle++) {
+            for (int i : sampler.draw(30)) {
+                assertEquals(1, i % 2, "index retiré " + i + " tiré");
+            }
+        }
+        assertEquals(50, sampler.drawable());
+    }
+
+    @Test
+    void ensureRemainingKeepsAGameFreeOfRepeats() {
+        QuestionSampler sampler = new QuestionSampler(50, new Random(3));
+        for (int game = 0; game < 100; game++) {
+            sampler.ensureRemaining(12);
+            Set<Integer> seen = new HashSet<>();
+            for (int turn = 0; turn < 4; turn++) {
+                for (int i : sampler.draw(3)) {
+                    assertTrue(seen.add(i), "question " + i + " posée deux fois dans la partie " + game);
+                }
+            }
+        }
+    }
+
+    @Test
+    void resizedIndicesAreDrawnAfterTheOrderIsBuilt() {
+        QuestionSampler sampler = new QuestionSampler(10, new Random(5));
+        sampler.retire(9);
+        sampler.draw(8);
+        sampler.resize(20);
+        assertEquals(11, sampler.remaining());
+        Set<Integer> drawn = new HashSet<>();
+        for (int i : sampler.draw(11)) {
+            assertTrue(drawn.add(i));
+            assertNotEquals(9, i);
+        }
+        assertEquals(0, sampler.remaining());
+        assertTrue(drawn.containsAll(List.of(10, 11, 12, 13, 14, 15, 16, 17, 18, 19)));
+    }
+
+    private static int free(boolean[] used) {
+        return used.length - count(used);
+    }
+
+    private static int count(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
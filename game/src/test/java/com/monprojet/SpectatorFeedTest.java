@@ -0,0 +1,71 @@
+package com.monprojet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorFeedTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void viewerFollowsEveryChange() throws IOException {
+        Path file = dir.resolve("spectateurs.feed");
+        SpectatorFeed feed = SpectatorFeed.open(file, 1 << 16);
+        SpectatorFeed.Reader reader = SpectatorFeed.Reader.open(file);
+        SpectatorFeed.View view = new SpectatorFeed.View();
+        assertFalse(reader.poll(view));
+
+        List<Player> players = List.of(new Player("Ana"), new Player("Bo"));
+        Question question = new Question("Que signifie CPU ?", List.of("Central Processing Unit", "Autre"), 0);
+        feed.publish(QuizEngine.State.GAME, players, players.get(0), question, 1000);
+        assertTrue(reader.poll(view));
+        assertEquals(QuizEngine.State.GAME, view.getState());
+        assertEquals(2, view.getPlayerCount());
+        assertEquals("Bo", view.getName(1));
+        assertEquals(0, view.getCurrent());
+        assertEquals("Que signifie CPU ?", view.getQuestion());
+        assertArrayEquals(new String[] {"Central Processing Unit", "Autre"}, view.getOptions());
+
+        players.get(0).setScore(10);
+        feed.publish(QuizEngine.State.GAME, players, players.get(1), question, 400);
+        // Nothing changed: no frame
+        feed.publish(QuizEngine.State.GAME, players, players.get(1), question, 400);
+        assertTrue(reader.poll(view));
+        assertFalse(reader.poll(view));
+        assertEquals(10, view.getScore(0));
+        assertEquals(1, view.getCurrent());
+        assertEquals(400, view.getTimer());
+        assertEquals(2, feed.getPublished());
+    }
+
+    @Test
+    void lateViewerCatchesUpFromAKeyframe() throws IOException {
+        Path file = dir.resolve("spectateurs.feed");
+        SpectatorFeed feed = SpectatorFeed.open(file, 4096);
+        List<Player> players = List.of(new Player("Ana"), new Player("Bo"));
+        Question question = new Question("Combien de bits dans un octet ?", List.of("8", "16"), 0);
+        SpectatorFeed.Reader reader = SpectatorFeed.Reader.open(file);
+        SpectatorFeed.View view = new SpectatorFeed.View();
+        feed.publish(QuizEngine.State.GAME, players, players.get(0), question, 1000);
+        assertTrue(reader.poll(view));
+
+        // Many rings' worth of frames while the viewer looks away
+        for (int i = 1; i <= 5000; i++) {
+            players.get(i % 2).setScore(i);
+            feed.publish(QuizEngine.State.GAME, players, players.get(i % 2), question, 1000 - i % 1000);
+        }
+        while (reader.poll(view)) {
+            // Drains to the last frame
+        }
+        assertTrue(reader.getResyncs() > 0);
+        assertEquals(5000, view.getScore(0));
+        assertEquals(4999, view.getScore(1));
+        assertEquals(0, view.getCurrent());
+        assertEquals(1000, view.getTimer());
+    }
+}